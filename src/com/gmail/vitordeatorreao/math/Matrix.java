@@ -129,12 +129,57 @@ public class Matrix {
 	 * @return The resulting <code>Vector</code>
 	 */
 	public Vector mult(Vector v) {
-		double[] ds = new double[v.getDimension()];
-		Matrix m = this.mult(v.toMatrix());
-		for (int i = 0; i < m.getNumRows(); i++) {
-			ds[i] = m.get(i, 0);
+		return mult(v, new Vector(new double[this.getNumRows()]));
+	}
+	
+	/**
+	 * Multiplies a Vector by a Matrix, writing the result into another 
+	 * <code>Vector</code>.
+	 * @param v The <code>Vector</code> to multiply by this <code>Matrix</code>
+	 * @param dest Where the resulting <code>Vector</code> is written. It 
+	 * 			must not be <code>v</code>.
+	 * @return <code>dest</code>
+	 * @throws IllegalArgumentException if <code>dest</code> is not of 
+	 * 			the dimension of the result, the number of rows
+	 */
+	public Vector mult(Vector v, Vector dest) {
+		if(this.getNumColumns() != v.getDimension()) {
+			throw new IllegalArgumentException(
+					"matrix is "+this.getNumRows()+"x"+this.getNumColumns()+
+					"while the vector is of dimension "+v.getDimension()
+			);
+		}
+		Vector.checkDest(dest, this.getNumRows());
+		double[] ds = dest.getArray();
+		for (int i = 0; i < this.getNumRows(); i++) {
+			double sum = 0;
+			for(int k = 0; k < this.getNumColumns(); k++) {
+				sum += this.get(i, k) * v.get(k);
+			}
+			ds[i] = sum;
+		}
+		return dest;
+	}
+	
+	/**
+	 * Multiplies a <code>Vec3</code> by this 3x3 <code>Matrix</code>, 
+	 * writing the result into another <code>Vec3</code>.
+	 * @param v The <code>Vec3</code> to multiply by this <code>Matrix</code>
+	 * @param dest Where the result is written, may be <code>v</code>
+	 * @return <code>dest</code>
+	 */
+	public Vec3 mult(Vec3 v, Vec3 dest) {
+		if(this.getNumColumns() != 3 || this.getNumRows() != 3) {
+			throw new IllegalArgumentException(
+					"Only 3x3 matrices can multiply a Vec3");
 		}
-		return new Vector(ds);
+		double x = v.getX();
+		double y = v.getY();
+		double z = v.getZ();
+		return dest.set(
+				((array[0] * x) + (array[1] * y)) + (array[2] * z),
+				((array[3] * x) + (array[4] * y)) + (array[5] * z),
+				((array[6] * x) + (array[7] * y)) + (array[8] * z));
 	}
 	
 	/**
@@ -0,0 +1,245 @@
+package com.gmail.vitordeatorreao.math;
+
+/**
+ * This class implements a mutable 3-dimensional vector.<br>
+ * Unlike {@link Vector}, whose operations always return a new object, the
+ * operations of a <code>Vec3</code> change it in place, so code which runs
+ * for every pixel can reuse a few instances instead of allocating.
+ * <p>
+ * This code is available through the
+ * <a href="http://www.gnu.org/licenses/gpl-2.0.html">GNU GPL v2.0</a> license.
+ * <br>
+ * You can acess the full project at
+ * <a href="https://github.com/vitordeatorreao/bcgproject1">GitHub</a>.
+ * @author	<a href="https://github.com/vitordeatorreao/">V&iacute;tor de
+ * 			Albuquerque Torre&atilde;o</a>
+ * @version 1.0
+ * @since 1.0
+ */
+public class Vec3 {
+
+	private double x;
+	private double y;
+	private double z;
+
+	/**
+	 * Creates a zero <code>Vec3</code>.
+	 */
+	public Vec3() {
+	}
+
+	/**
+	 * Creates a <code>Vec3</code> with the given coordinates.
+	 * @param x the first coordinate
+	 * @param y the second coordinate
+	 * @param z the third coordinate
+	 */
+	public Vec3(double x, double y, double z) {
+		this.x = x;
+		this.y = y;
+		this.z = z;
+	}
+
+	/**
+	 * Returns the first coordinate.
+	 * @return the x coordinate
+	 */
+	public double getX() {
+		return x;
+	}
+
+	/**
+	 * Returns the second coordinate.
+	 * @return the y coordinate
+	 */
+	public double getY() {
+		return y;
+	}
+
+	/**
+	 * Returns the third coordinate.
+	 * @return the z coordinate
+	 */
+	public double getZ() {
+		return z;
+	}
+
+	/**
+	 * Returns the coordinate at the given dimension.
+	 * @param index the dimension: 0, 1 or 2
+	 * @return the coordinate
+	 */
+	public double get(int index) {
+		switch (index) {
+		case 0:
+			return x;
+		case 1:
+			return y;
+		case 2:
+			return z;
+		default:
+			throw new IndexOutOfBoundsException("A Vec3 has 3 dimensions");
+		}
+	}
+
+	/**
+	 * Sets all three coordinates.
+	 * @param x the first coordinate
+	 * @param y the second coordinate
+	 * @param z the third coordinate
+	 * @return this <code>Vec3</code>
+	 */
+	public Vec3 set(double x, double y, double z) {
+		this.x = x;
+		this.y = y;
+		this.z = z;
+		return this;
+	}
+
+	/**
+	 * Copies the coordinates of another <code>Vec3</code>.
+	 * @param v the <code>Vec3</code> to copy
+	 * @return this <code>Vec3</code>
+	 */
+	public Vec3 set(Vec3 v) {
+		return set(v.x, v.y, v.z);
+	}
+
+	/**
+	 * Reads the coordinates from three consecutive positions of an array,
+	 * such as the flat arrays of a mesh.
+	 * @param array		the array
+	 * @param offset	the position of the first coordinate
+	 * @return this <code>Vec3</code>
+	 */
+	public Vec3 set(double[] array, int offset) {
+		return set(array[offset], array[offset + 1], array[offset + 2]);
+	}
+
+	/**
+	 * Copies the coordinates of a 3-dimensional <code>Vector</code>.
+	 * @param v the <code>Vector</code> to copy
+	 * @return this <code>Vec3</code>
+	 */
+	public Vec3 set(Vector v) {
+		return set(v.get(0), v.get(1), v.get(2));
+	}
+
+	/**
+	 * Copies the coordinates of a 3-dimensional <code>Vertex</code>.
+	 * @param v the <code>Vertex</code> to copy
+	 * @return this <code>Vec3</code>
+	 */
+	public Vec3 set(Vertex v) {
+		return set(v.getCoord(0), v.getCoord(1), v.getCoord(2));
+	}
+
+	/**
+	 * Adds another <code>Vec3</code> to this one.
+	 * @param v the <code>Vec3</code> to be added
+	 * @return this <code>Vec3</code>
+	 */
+	public Vec3 add(Vec3 v) {
+		return set(x + v.x, y + v.y, z + v.z);
+	}
+
+	/**
+	 * Subtracts another <code>Vec3</code> from this one.
+	 * @param v the <code>Vec3</code> to be subtracted
+	 * @return this <code>Vec3</code>
+	 */
+	public Vec3 sub(Vec3 v) {
+		return set(x - v.x, y - v.y, z - v.z);
+	}
+
+	/**
+	 * Sets this <code>Vec3</code> to the difference of two others.
+	 * @param a the <code>Vec3</code> to subtract from
+	 * @param b the <code>Vec3</code> to be subtracted
+	 * @return this <code>Vec3</code>
+	 */
+	public Vec3 sub(Vec3 a, Vec3 b) {
+		return set(a.x - b.x, a.y - b.y, a.z - b.z);
+	}
+
+	/**
+	 * Multiplies this <code>Vec3</code> by a scalar.
+	 * @param d the scalar
+	 * @return this <code>Vec3</code>
+	 */
+	public Vec3 mult(double d) {
+		return set(d * x, d * y, d * z);
+	}
+
+	/**
+	 * Returns the inner product of this <code>Vec3</code> with another.
+	 * @param v the other <code>Vec3</code>
+	 * @return the inner product
+	 */
+	public double dot(Vec3 v) {
+		return (x * v.x) + (y * v.y) + (z * v.z);
+	}
+
+	/**
+	 * Sets this <code>Vec3</code> to the vector product of two others. It
+	 * is safe for either of them to be this <code>Vec3</code>.
+	 * @param a the left operand
+	 * @param b the right operand
+	 * @return this <code>Vec3</code>
+	 */
+	public Vec3 cross(Vec3 a, Vec3 b) {
+		return set((a.y * b.z) - (a.z * b.y),
+				(a.z * b.x) - (a.x * b.z),
+				(a.x * b.y) - (a.y * b.x));
+	}
+
+	/**
+	 * Returns the norm of this <code>Vec3</code>.
+	 * @return the norm
+	 */
+	public double getNorm() {
+		return Math.sqrt((x * x) + (y * y) + (z * z));
+	}
+
+	/**
+	 * Normalizes this <code>Vec3</code> in place.
+	 * @return this <code>Vec3</code>
+	 */
+	public Vec3 normalize() {
+		double norm = getNorm();
+		return set(x / norm, y / norm, z / norm);
+	}
+
+	/**
+	 * Writes the normalized version of this <code>Vec3</code> into another
+	 * one, leaving this one unchanged.
+	 * @param dest where the result is written
+	 * @return <code>dest</code>
+	 */
+	public Vec3 normalizeInto(Vec3 dest) {
+		double norm = getNorm();
+		return dest.set(x / norm, y / norm, z / norm);
+	}
+
+	/**
+	 * Returns a new immutable <code>Vector</code> with the same coordinates.
+	 * @return the <code>Vector</code>
+	 */
+	public Vector toVector() {
+		return new Vector(new double[] {x, y, z});
+	}
+
+	/**
+	 * Returns the <code>String</code> representing the <code>Vec3</code>
+	 * @return a <code>String</code> that represents the <code>Vec3</code>
+	 */
+	@Override
+	public String toString() {
+		return "[" + (x + 0.0) + ", " + (y + 0.0) + ", " + (z + 0.0) + "]";
+
+		/* We are using +0.0 when turning doubles to strings because of
+		 * the Java "Negative Zero"
+		 */
+	}
+
+}
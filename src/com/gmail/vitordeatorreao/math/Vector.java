@@ -52,11 +52,26 @@ public class Vector {
 	 * @return the resulting <code>Vector</code> 
 	 */
 	public Vector add(double d) {
-		double[] ds = new double[this.getDimension()];
+		return add(d, new Vector(new double[this.getDimension()]));
+	}
+	
+	/**
+	 * Writes this <code>Vector</code> with the scalar summed in all 
+	 * dimensions into another <code>Vector</code>.
+	 * @param d the scalar value
+	 * @param dest where the result is written, may be this 
+	 * 			<code>Vector</code>
+	 * @return <code>dest</code>
+	 * @throws IllegalArgumentException if <code>dest</code> is not of the 
+	 * 			dimension of the result
+	 */
+	public Vector add(double d, Vector dest) {
+		checkDest(dest, this.getDimension());
+		double[] ds = dest.array;
 		for(int i = 0; i < this.getDimension(); i++) {
 			ds[i] = this.get(i) + d;
 		}
-		return new Vector(ds);
+		return dest;
 	}
 	
 	/**
@@ -66,16 +81,30 @@ public class Vector {
 	 * @return the resulting <code>Vector</code>
 	 */
 	public Vector add(Vector v) {
+		return add(v, new Vector(new double[v.getDimension()]));
+	}
+	
+	/**
+	 * Writes the sum of this <code>Vector</code> with another into a 
+	 * third one.
+	 * @param v the <code>Vector</code> to be added to this one
+	 * @param dest where the result is written, may be either operand
+	 * @return <code>dest</code>
+	 * @throws IllegalArgumentException if <code>dest</code> is not of the 
+	 * 			dimension of the result
+	 */
+	public Vector add(Vector v, Vector dest) {
 		if (v.getDimension() != this.getDimension()) {
 			throw new IllegalArgumentException(
 					"Vectors must be of same dimension for add operation"
 			);			
 		}
-		double[] ds = new double[v.getDimension()];
+		checkDest(dest, this.getDimension());
+		double[] ds = dest.array;
 		for(int i = 0; i < v.getDimension(); i++) {
 			ds[i] = v.get(i) + this.get(i);
 		}
-		return new Vector(ds);
+		return dest;
 	}
 	
 	/**
@@ -104,11 +133,26 @@ public class Vector {
 	 * @return the resulting <code>Vector</code>
 	 */
 	public Vector mult(double d) {
-		double[] ds = new double[this.getDimension()];
+		return mult(d, new Vector(new double[this.getDimension()]));
+	}
+	
+	/**
+	 * Writes the product of this <code>Vector</code> with a scalar into 
+	 * another <code>Vector</code>.
+	 * @param d the scalar with which the <code>Vector</code> will be multiplied
+	 * @param dest where the result is written, may be this 
+	 * 			<code>Vector</code>
+	 * @return <code>dest</code>
+	 * @throws IllegalArgumentException if <code>dest</code> is not of the 
+	 * 			dimension of the result
+	 */
+	public Vector mult(double d, Vector dest) {
+		checkDest(dest, this.getDimension());
+		double[] ds = dest.array;
 		for (int i = 0; i < this.getDimension(); i++) {
 			ds[i] = d*this.get(i);
 		}
-		return new Vector(ds);
+		return dest;
 	}
 	
 	/**
@@ -119,15 +163,29 @@ public class Vector {
 	 * @return The resulting <code>Vector</code>
 	 */
 	public Vector sub(Vector v) {
+		return sub(v, new Vector(new double[v.getDimension()]));
+	}
+	
+	/**
+	 * Writes the subtraction of this <code>Vector</code> with another 
+	 * into a third one.
+	 * @param v the <code>Vector</code> to be subtracted from this one
+	 * @param dest where the result is written, may be either operand
+	 * @return <code>dest</code>
+	 * @throws IllegalArgumentException if <code>dest</code> is not of the 
+	 * 			dimension of the result
+	 */
+	public Vector sub(Vector v, Vector dest) {
 		if (this.getDimension() != v.getDimension()) {
 			throw new IllegalArgumentException(
 					"You can only subtract vectors with same dimension");
 		}
-		double[] ds = new double[v.getDimension()];
+		checkDest(dest, this.getDimension());
+		double[] ds = dest.array;
 		for (int i = 0; i < v.getDimension(); i++) {
 			ds[i] = this.get(i) - v.get(i);
 		}
-		return new Vector(ds);
+		return dest;
 	}
 
 	/**
@@ -138,17 +196,53 @@ public class Vector {
 	 * @return the resulting <code>Vector</code>
 	 */
 	public Vector vectorProduct(Vector v) {
+		return vectorProduct(v, new Vector(new double[3]));
+	}
+	
+	/**
+	 * Writes the vector product of this vector with another into a 
+	 * third one.
+	 * @param	v	the <code>Vector</code> to be used with this 
+	 * 			for a vector product
+	 * @param dest where the result is written, may be either operand
+	 * @return <code>dest</code>
+	 * @throws IllegalArgumentException if <code>dest</code> is not of the 
+	 * 			dimension of the result
+	 */
+	public Vector vectorProduct(Vector v, Vector dest) {
 		if( (v.getDimension() != this.getDimension()) &&
 				(v.getDimension() != 3) ) {
 			throw new IllegalArgumentException(
 					"Vectors must be both of dimension 3"
 			);
 		}
-		double[] ds = new double[3];
-		ds[0] = (this.get(1)*v.get(2)) - (this.get(2)*v.get(1));
-		ds[1] = (this.get(2)*v.get(0)) - (this.get(0)*v.get(2));
-		ds[2] = (this.get(0)*v.get(1)) - (this.get(1)*v.get(0));
-		return new Vector(ds);
+		double x = (this.get(1)*v.get(2)) - (this.get(2)*v.get(1));
+		double y = (this.get(2)*v.get(0)) - (this.get(0)*v.get(2));
+		double z = (this.get(0)*v.get(1)) - (this.get(1)*v.get(0));
+		checkDest(dest, 3);
+		double[] ds = dest.array;
+		ds[0] = x;
+		ds[1] = y;
+		ds[2] = z;
+		return dest;
+	}
+	
+	/**
+	 * Throws an <code>IllegalArgumentException</code> if a 
+	 * <code>Vector</code> given for a result is not of its dimension. 
+	 * A shorter one could not hold it, and a longer one would keep 
+	 * coordinates of whatever it held before.
+	 * @param dest the <code>Vector</code> where the result is written
+	 * @param dimension the dimension of the result
+	 */
+	static void checkDest(Vector dest, int dimension) {
+		if (dest.getDimension() != dimension) {
+			throw new IllegalArgumentException(
+					"The result is of dimension "+dimension
+					+" while the destination is of dimension "
+					+dest.getDimension()
+			);
+		}
 	}
 	
 	/**
@@ -158,7 +252,7 @@ public class Vector {
 	public double getNorm() {
 		double d = 0.0;
 		for(int i = 0; i < getDimension(); i++) {
-			d += Math.pow(get(i), 2);
+			d += get(i) * get(i);
 		}
 		return Math.sqrt(d);
 	}
@@ -168,12 +262,26 @@ public class Vector {
 	 * @return normalized <code>Vector</code>
 	 */
 	public Vector normalize() {
-		double[] ds = new double[getDimension()];
+		return normalize(new Vector(new double[getDimension()]));
+	}
+	
+	/**
+	 * Writes the normalized version of this <code>Vector</code> into 
+	 * another <code>Vector</code>.
+	 * @param dest where the result is written, may be this 
+	 * 			<code>Vector</code>
+	 * @return <code>dest</code>
+	 * @throws IllegalArgumentException if <code>dest</code> is not of the 
+	 * 			dimension of the result
+	 */
+	public Vector normalize(Vector dest) {
+		checkDest(dest, getDimension());
+		double[] ds = dest.array;
 		double norm = getNorm();
 		for(int i = 0; i < getDimension(); i++) {
 			ds[i] = array[i] / norm;
 		}
-		return new Vector(ds);
+		return dest;
 	}
 	
 	/**
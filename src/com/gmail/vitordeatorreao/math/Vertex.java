@@ -109,16 +109,30 @@ public class Vertex {
 	 * @return <code>Vector</code> between the two vertices.
 	 */
 	public Vector subtract(Vertex v) {
+		return subtract(v, new Vector(new double[this.getDimension()]));
+	}
+	
+	/**
+	 * Writes the <code>Vector</code> between another instance of 
+	 * <code>Vertex</code> and this one into a given <code>Vector</code>.
+	 * @param v another <code>Vertex</code> instance
+	 * @param dest where the result is written
+	 * @return <code>dest</code>
+	 * @throws IllegalArgumentException if <code>dest</code> is not of the 
+	 * 			dimension of the vertices
+	 */
+	public Vector subtract(Vertex v, Vector dest) {
 		if(this.getDimension() != v.getDimension()) {
 			throw new IllegalArgumentException(
 					"Vectors must be of same dimension"
 			);
 		}
-		double[] ds = new double[this.getDimension()];
+		Vector.checkDest(dest, v.getDimension());
+		double[] ds = dest.getArray();
 		for(int i = 0; i < v.getDimension(); i++) {
 			ds[i] = this.getCoord(i) - v.getCoord(i);
 		}
-		return new Vector(ds);
+		return dest;
 	}
 	
 	/**
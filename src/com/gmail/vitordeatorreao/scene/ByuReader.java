@@ -0,0 +1,449 @@
+package com.gmail.vitordeatorreao.scene;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class implements a streaming reader for .byu files.<br>
+ * The file is read line by line straight from a byte buffer. Each line is
+ * split in whitespace separated tokens, which can then be parsed as numbers
+ * without creating a <code>String</code> for every token.
+ * <p>
+ * Lines are terminated by <code>'\n'</code>. Carriage returns are treated as
+ * whitespace, so files with <code>"\r\n"</code> line endings are also
+ * accepted.
+ * <p>
+ * This code is available through the
+ * <a href="http://www.gnu.org/licenses/gpl-2.0.html">GNU GPL v2.0</a> license.
+ * <br>
+ * You can acess the full project at
+ * <a href="https://github.com/vitordeatorreao/bcgproject1">GitHub</a>.
+ * @author	<a href="https://github.com/vitordeatorreao/">V&iacute;tor de
+ * 			Albuquerque Torre&atilde;o</a>
+ * @version 1.0
+ * @since 1.0
+ */
+public class ByuReader implements Closeable {
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * Powers of ten which are exactly representable as <code>double</code>.
+	 */
+	private static final double[] POWERS_OF_TEN = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+		1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+
+	/**
+	 * Largest integer below which every <code>long</code> is exactly
+	 * representable as a <code>double</code>.
+	 */
+	private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+	private ReadableByteChannel channel;
+	private byte[] buffer;
+	private long bufferOffset;
+	private int position;
+	private int limit;
+	private boolean endOfStream;
+
+	private int lineNumber;
+	private int lineStart;
+	private int lineEnd;
+
+	private int tokenCount;
+	private int[] tokenStarts;
+	private int[] tokenEnds;
+
+	/**
+	 * Creates a new <code>ByuReader</code>.
+	 * @param in The stream from which the .byu file will be read
+	 */
+	public ByuReader(InputStream in) {
+		this(Channels.newChannel(in));
+	}
+	
+	/**
+	 * Creates a new <code>ByuReader</code>. If the channel is seekable, 
+	 * such as a <code>FileChannel</code>, the reader can later 
+	 * {@link #seek(long, int) seek} to another line.
+	 * @param channel The channel from which the .byu file will be read
+	 */
+	public ByuReader(ReadableByteChannel channel) {
+		this.channel = channel;
+		this.buffer = new byte[BUFFER_SIZE];
+		this.tokenStarts = new int[8];
+		this.tokenEnds = new int[8];
+	}
+	
+	/**
+	 * Creates a <code>ByuReader</code> over a part of a .byu file which 
+	 * is already in memory.
+	 * @param data			The bytes of the file
+	 * @param from			The first byte to read, at the start of a line
+	 * @param to			The byte after the last one to read
+	 * @param offset		The offset of <code>data[0]</code> in the file
+	 * @param lineNumber	The number of the line before <code>from</code>
+	 */
+	ByuReader(byte[] data, int from, int to, long offset, int lineNumber) {
+		this.buffer = data;
+		this.position = from;
+		this.limit = to;
+		this.bufferOffset = offset;
+		this.lineNumber = lineNumber;
+		this.endOfStream = true;
+		this.tokenStarts = new int[8];
+		this.tokenEnds = new int[8];
+	}
+
+	/**
+	 * Advances to the next line of the file.
+	 * @return	<code>true</code> if there was another line,
+	 * 			<code>false</code> if the end of the file was reached.
+	 * @throws IOException In case there is a problem reading the file
+	 */
+	public boolean nextLine() throws IOException {
+		int scan = position;
+		int newLine;
+		while (true) {
+			newLine = -1;
+			for (int i = scan; i < limit; i++) {
+				if (buffer[i] == '\n') {
+					newLine = i;
+					break;
+				}
+			}
+			if (newLine >= 0 || endOfStream) {
+				break;
+			}
+			scan = limit - position;
+			fill();
+		}
+		if (newLine < 0) {
+			if (position == limit) {
+				tokenCount = 0;
+				return false;
+			}
+			//The last line has no line terminator
+			newLine = limit;
+		}
+		lineStart = position;
+		lineEnd = newLine;
+		position = Math.min(newLine + 1, limit);
+		lineNumber++;
+		tokenize();
+		return true;
+	}
+
+	/**
+	 * Makes room in the buffer and reads more bytes into it.
+	 * @throws IOException In case there is a problem reading the file
+	 */
+	private void fill() throws IOException {
+		if (position > 0) {
+			System.arraycopy(buffer, position, buffer, 0, limit - position);
+			bufferOffset += position;
+			limit -= position;
+			position = 0;
+		}
+		if (limit == buffer.length) {
+			//A single line does not fit in the buffer
+			byte[] bigger = new byte[buffer.length * 2];
+			System.arraycopy(buffer, 0, bigger, 0, limit);
+			buffer = bigger;
+		}
+		int read = channel.read(
+				ByteBuffer.wrap(buffer, limit, buffer.length - limit));
+		if (read < 0) {
+			endOfStream = true;
+		} else {
+			limit += read;
+		}
+	}
+
+	/**
+	 * Finds the boundaries of every token in the current line.
+	 */
+	private void tokenize() {
+		tokenCount = 0;
+		int i = lineStart;
+		while (i < lineEnd) {
+			while (i < lineEnd && isWhitespace(buffer[i])) {
+				i++;
+			}
+			if (i == lineEnd) {
+				break;
+			}
+			int start = i;
+			while (i < lineEnd && !isWhitespace(buffer[i])) {
+				i++;
+			}
+			if (tokenCount == tokenStarts.length) {
+				int[] starts = new int[tokenCount * 2];
+				int[] ends = new int[tokenCount * 2];
+				System.arraycopy(tokenStarts, 0, starts, 0, tokenCount);
+				System.arraycopy(tokenEnds, 0, ends, 0, tokenCount);
+				tokenStarts = starts;
+				tokenEnds = ends;
+			}
+			tokenStarts[tokenCount] = start;
+			tokenEnds[tokenCount] = i;
+			tokenCount++;
+		}
+	}
+
+	/**
+	 * Moves the reader to another line of the file. Only works if the 
+	 * reader was created over a seekable channel.
+	 * @param offset		The offset in the file of the start of a line
+	 * @param lineNumber	The number of the line before that one
+	 * @throws IOException In case there is a problem reading the file
+	 */
+	public void seek(long offset, int lineNumber) throws IOException {
+		if (!(channel instanceof SeekableByteChannel)) {
+			throw new UnsupportedOperationException(
+					"This reader can not seek");
+		}
+		((SeekableByteChannel) channel).position(offset);
+		this.bufferOffset = offset;
+		this.position = 0;
+		this.limit = 0;
+		this.endOfStream = false;
+		this.lineNumber = lineNumber;
+		this.tokenCount = 0;
+	}
+	
+	/**
+	 * Returns the offset in the file of the line after the current one.
+	 * @return the offset, in bytes, of the next line to be read
+	 */
+	public long getOffset() {
+		return bufferOffset + position;
+	}
+	
+	/**
+	 * Returns whether the current line ended at the end of the data, 
+	 * without a line terminator.
+	 * @return <code>true</code> if the current line is unterminated
+	 */
+	boolean isLineUnterminated() {
+		return lineEnd == limit;
+	}
+	
+	/**
+	 * Returns the number of the current line, starting from 1.
+	 * @return the current line number
+	 */
+	public int getLineNumber() {
+		return lineNumber;
+	}
+
+	/**
+	 * Returns the number of tokens in the current line.
+	 * @return the number of whitespace separated tokens
+	 */
+	public int getTokenCount() {
+		return tokenCount;
+	}
+
+	/**
+	 * Parses a token of the current line as a <code>double</code>.
+	 * @param index the index of the token in the line
+	 * @return the value of the token
+	 * @throws NumberFormatException	If the token is not a valid
+	 * 									<code>double</code>
+	 */
+	public double getDouble(int index) {
+		checkToken(index);
+		return parseDouble(buffer, tokenStarts[index], tokenEnds[index]);
+	}
+
+	/**
+	 * Parses a token of the current line as an <code>int</code>.
+	 * @param index the index of the token in the line
+	 * @return the value of the token
+	 * @throws NumberFormatException	If the token is not a valid
+	 * 									<code>int</code>
+	 */
+	public int getInt(int index) {
+		checkToken(index);
+		return parseInt(buffer, tokenStarts[index], tokenEnds[index]);
+	}
+
+	/**
+	 * Returns the current line as a <code>String</code>. This allocates, so
+	 * it is meant for error messages only.
+	 * @return the current line without its line terminator
+	 */
+	public String getLine() {
+		int end = lineEnd;
+		if (end > lineStart && buffer[end - 1] == '\r') {
+			end--;
+		}
+		return new String(buffer, lineStart, end - lineStart,
+				StandardCharsets.US_ASCII);
+	}
+
+	private void checkToken(int index) {
+		if (index < 0 || index >= tokenCount) {
+			throw new NumberFormatException("Expected at least "+(index+1)
+					+" values, but found "+tokenCount);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (channel != null) {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Returns whether the byte is a separator between tokens.
+	 */
+	static boolean isWhitespace(byte b) {
+		return b == ' ' || b == '\t' || b == '\r' || b == '\f';
+	}
+
+	/**
+	 * Parses an <code>int</code> from a range of ASCII bytes.<br />
+	 * Accepts the same inputs as <code>Integer.parseInt</code>.
+	 * @param b		the bytes
+	 * @param from	the first byte of the number
+	 * @param to	the byte after the last one of the number
+	 * @return the parsed value
+	 * @throws NumberFormatException If the bytes are not a valid int
+	 */
+	static int parseInt(byte[] b, int from, int to) {
+		int i = from;
+		boolean negative = false;
+		if (i < to && (b[i] == '-' || b[i] == '+')) {
+			negative = b[i] == '-';
+			i++;
+		}
+		if (i == to || to - i > 9) {
+			//Empty, or possibly out of range: let the JDK decide
+			return Integer.parseInt(slowString(b, from, to));
+		}
+		int value = 0;
+		for (; i < to; i++) {
+			int digit = b[i] - '0';
+			if (digit < 0 || digit > 9) {
+				return Integer.parseInt(slowString(b, from, to));
+			}
+			value = (value * 10) + digit;
+		}
+		return negative ? -value : value;
+	}
+
+	/**
+	 * Parses a <code>double</code> from a range of ASCII bytes.<br />
+	 * Plain decimal numbers with up to 15 or so significant digits are
+	 * converted directly, and the result is exactly the same as
+	 * <code>Double.parseDouble</code> would give, since both the mantissa and
+	 * the power of ten are exactly representable and IEEE division and
+	 * multiplication are correctly rounded. Anything else (long mantissas,
+	 * large exponents, hexadecimal, <code>NaN</code>...) falls back to
+	 * <code>Double.parseDouble</code>.
+	 * @param b		the bytes
+	 * @param from	the first byte of the number
+	 * @param to	the byte after the last one of the number
+	 * @return the parsed value
+	 * @throws NumberFormatException If the bytes are not a valid double
+	 */
+	static double parseDouble(byte[] b, int from, int to) {
+		int i = from;
+		boolean negative = false;
+		if (i < to && (b[i] == '-' || b[i] == '+')) {
+			negative = b[i] == '-';
+			i++;
+		}
+		long mantissa = 0;
+		int digits = 0;
+		int exponent = 0;
+		boolean seenDigit = false;
+		//Integer part
+		for (; i < to; i++) {
+			int digit = b[i] - '0';
+			if (digit < 0 || digit > 9) {
+				break;
+			}
+			seenDigit = true;
+			if (mantissa != 0 || digit != 0) {
+				if (++digits > 18) {
+					return slowDouble(b, from, to);
+				}
+				mantissa = (mantissa * 10) + digit;
+			}
+		}
+		//Fraction part
+		if (i < to && b[i] == '.') {
+			i++;
+			for (; i < to; i++) {
+				int digit = b[i] - '0';
+				if (digit < 0 || digit > 9) {
+					break;
+				}
+				seenDigit = true;
+				if (mantissa != 0 || digit != 0) {
+					if (++digits > 18) {
+						return slowDouble(b, from, to);
+					}
+					mantissa = (mantissa * 10) + digit;
+				}
+				exponent--;
+			}
+		}
+		if (!seenDigit) {
+			return slowDouble(b, from, to);
+		}
+		//Exponent part
+		if (i < to && (b[i] == 'e' || b[i] == 'E')) {
+			i++;
+			boolean negativeExponent = false;
+			if (i < to && (b[i] == '-' || b[i] == '+')) {
+				negativeExponent = b[i] == '-';
+				i++;
+			}
+			if (i == to || to - i > 4) {
+				return slowDouble(b, from, to);
+			}
+			int e = 0;
+			for (; i < to; i++) {
+				int digit = b[i] - '0';
+				if (digit < 0 || digit > 9) {
+					return slowDouble(b, from, to);
+				}
+				e = (e * 10) + digit;
+			}
+			exponent += negativeExponent ? -e : e;
+		}
+		if (i != to || mantissa >= MAX_EXACT_MANTISSA ||
+				exponent < -22 || exponent > 22) {
+			return slowDouble(b, from, to);
+		}
+		double value = mantissa;
+		if (exponent < 0) {
+			value /= POWERS_OF_TEN[-exponent];
+		} else {
+			value *= POWERS_OF_TEN[exponent];
+		}
+		return negative ? -value : value;
+	}
+
+	private static double slowDouble(byte[] b, int from, int to) {
+		return Double.parseDouble(slowString(b, from, to));
+	}
+
+	private static String slowString(byte[] b, int from, int to) {
+		return new String(b, from, to - from, StandardCharsets.US_ASCII);
+	}
+
+}
@@ -1,6 +1,7 @@
 package com.gmail.vitordeatorreao.scene;
 
 import com.gmail.vitordeatorreao.math.Matrix;
+import com.gmail.vitordeatorreao.math.Vec3;
 import com.gmail.vitordeatorreao.math.Vector;
 import com.gmail.vitordeatorreao.math.Vertex;
 
@@ -163,6 +164,50 @@ public class Camera {
 		return toCaninocalBase;
 	}
 	
+	/**
+	 * Changes a point in world coordinates to the view base of this 
+	 * <code>Camera</code>, with the focus at the origin, without allocating.
+	 * @param world	The point, in world coordinates
+	 * @param dest	Where the result is written, may be <code>world</code>
+	 * @return <code>dest</code>
+	 */
+	public Vec3 toView(Vec3 world, Vec3 dest) {
+		dest.set(world.getX() - focus.getCoord(0),
+				world.getY() - focus.getCoord(1),
+				world.getZ() - focus.getCoord(2));
+		return toViewBase.mult(dest, dest);
+	}
+	
+	/**
+	 * Projects a point in the view base onto the view plane of this 
+	 * <code>Camera</code>, without allocating.<br>
+	 * The first two coordinates of the result are normalized to 
+	 * <code>[-1, 1]</code> inside the view plane, and the third is the 
+	 * depth of the point in the view base.
+	 * @param view	The point, in the view base
+	 * @param dest	Where the result is written, may be <code>view</code>
+	 * @return <code>dest</code>
+	 */
+	public Vec3 perspective(Vec3 view, Vec3 dest) {
+		double xs = d * (view.getX()/view.getZ());
+		double ys = d * (view.getY()/view.getZ());
+		return dest.set(xs/hx, ys/hy, view.getZ());
+	}
+	
+	/**
+	 * Projects a point in world coordinates onto the view plane of this 
+	 * <code>Camera</code>, without allocating.<br>
+	 * The point is changed to the view base and projected in perspective, 
+	 * as {@link #toView(Vec3, Vec3)} followed by 
+	 * {@link #perspective(Vec3, Vec3)}.
+	 * @param world	The point, in world coordinates
+	 * @param dest	Where the result is written, may be <code>world</code>
+	 * @return <code>dest</code>
+	 */
+	public Vec3 project(Vec3 world, Vec3 dest) {
+		return perspective(toView(world, dest), dest);
+	}
+	
 	@Override
 	public String toString() {
 		String s = "{\n";
@@ -0,0 +1,416 @@
+package com.gmail.vitordeatorreao.scene;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * This class loads the vertices and triangles of an object in a .byu file
+ * in parallel.<br>
+ * The file is memory-mapped and split in chunks. A first pass counts the
+ * lines in every chunk, so every chunk knows which vertex or triangle its
+ * first line is. A second pass then parses all chunks at the same time,
+ * straight into the arrays of coordinates and indices.
+ * <p>
+ * Every window of the file is copied once into a buffer of the thread 
+ * parsing it, which the next chunks parsed by the same load reuse, so a 
+ * load allocates a few buffers however big the file is.
+ * <p>
+ * The result, including the reported errors, is the same as reading the
+ * lines one after the other with a {@link ByuReader}. {@link #main(String[])} 
+ * checks that on any file.
+ * <p>
+ * This code is available through the
+ * <a href="http://www.gnu.org/licenses/gpl-2.0.html">GNU GPL v2.0</a> license.
+ * <br>
+ * You can acess the full project at
+ * <a href="https://github.com/vitordeatorreao/bcgproject1">GitHub</a>.
+ * @author	<a href="https://github.com/vitordeatorreao/">V&iacute;tor de
+ * 			Albuquerque Torre&atilde;o</a>
+ * @version 1.0
+ * @since 1.0
+ */
+class MappedByuLoader {
+
+	/**
+	 * The size, in bytes, of the chunks the file is split in.
+	 */
+	private static final int CHUNK_SIZE = 8 << 20;
+
+	/**
+	 * How far past the end of its chunk a task maps the file at first, so
+	 * the last line starting in the chunk can be read whole.
+	 */
+	private static final int LINE_OVERLAP = 1 << 16;
+
+	private static ForkJoinPool pool;
+
+	/**
+	 * Returns the pool shared by all loads.
+	 * @return the <code>ForkJoinPool</code> on which chunks are parsed
+	 */
+	private static synchronized ForkJoinPool getPool() {
+		if (pool == null) {
+			pool = new ForkJoinPool();
+		}
+		return pool;
+	}
+
+	private FileChannel channel;
+
+	/**
+	 * The buffers no chunk is being parsed into. There are never more 
+	 * than threads parsing.
+	 */
+	private final Queue<byte[]> buffers = new ConcurrentLinkedQueue<byte[]>();
+
+	/**
+	 * Creates a loader for an open .byu file.
+	 * @param channel The file being loaded
+	 */
+	MappedByuLoader(FileChannel channel) {
+		this.channel = channel;
+	}
+
+	/**
+	 * Loads the vertices and triangles of an object.
+	 * @param start			The offset of the line after the object's header
+	 * @param lineNumber	The line number of the object's header
+	 * @param positions		Where the coordinates are stored, three per vertex
+	 * @param indices		Where the zero-based vertex indices are stored,
+	 * 						three per triangle
+	 * @return the offset of the line after the last triangle
+	 * @throws IOException In case there is a problem reading the file
+	 * @throws NonConformantSceneFile If there is a syntax error with the file
+	 */
+	long load(long start, int lineNumber, double[] positions, int[] indices)
+			throws IOException, NonConformantSceneFile {
+		int numVertices = positions.length / 3;
+		int numTriangles = indices.length / 3;
+		long numLines = (long) numVertices + numTriangles;
+		if (numLines == 0) {
+			return start;
+		}
+		long size = channel.size();
+
+		//First pass: count the lines in each chunk until there are enough
+		List<Long> chunkStarts = new ArrayList<Long>();
+		List<Long> linesBefore = new ArrayList<Long>();
+		long offset = start;
+		long lines = 0;
+		int batch = 4 * getPool().getParallelism();
+		while (lines < numLines && offset < size) {
+			List<Callable<Long>> counters = new ArrayList<Callable<Long>>();
+			for (int i = 0; i < batch && offset < size; i++) {
+				long end = Math.min(size, offset + CHUNK_SIZE);
+				chunkStarts.add(offset);
+				counters.add(new LineCounter(offset, end));
+				offset = end;
+			}
+			for (Long count : invokeAll(counters)) {
+				linesBefore.add(lines);
+				lines += count;
+			}
+		}
+		chunkStarts.add(offset);
+		long available = lines;
+		if (offset == size && size > start && lastByte(size) != '\n') {
+			//The file ends with a line without terminator
+			available++;
+		}
+
+		//Second pass: parse every chunk
+		List<Callable<ChunkParser>> parsers =
+				new ArrayList<Callable<ChunkParser>>();
+		for (int i = 0; i < linesBefore.size(); i++) {
+			parsers.add(new ChunkParser(chunkStarts.get(i),
+					chunkStarts.get(i + 1), linesBefore.get(i), lineNumber,
+					start, size, positions, indices));
+		}
+		long end = -1;
+		for (ChunkParser parser : invokeAll(parsers)) {
+			if (parser.error != null) {
+				//Chunks are in file order, so this is the first error
+				throw parser.error;
+			}
+			if (parser.end >= 0) {
+				end = parser.end;
+			}
+		}
+
+		if (available < numLines) {
+			int lastLine = (int) (lineNumber + available);
+			if (available < numVertices) {
+				throw SceneController.error(lastLine, "Expected "
+						+numVertices+" vertices, but found only "+available);
+			}
+			throw SceneController.error(lastLine, "Expected "+numTriangles
+					+" triangles, but found only "+(available - numVertices));
+		}
+		return end;
+	}
+
+	/**
+	 * Reads the last byte of the file.
+	 */
+	private byte lastByte(long size) throws IOException {
+		ByteBuffer b = ByteBuffer.allocate(1);
+		channel.read(b, size - 1);
+		return b.get(0);
+	}
+
+	/**
+	 * Runs the tasks on the shared pool and waits for all of them.
+	 */
+	private <T> List<T> invokeAll(List<? extends Callable<T>> tasks)
+			throws IOException {
+		List<T> results = new ArrayList<T>(tasks.size());
+		try {
+			for (Future<T> future : getPool().invokeAll(tasks)) {
+				results.add(future.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while loading the file", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IOException(e.getCause());
+		}
+		return results;
+	}
+
+	/**
+	 * Counts the line terminators in a chunk of the file.
+	 */
+	private class LineCounter implements Callable<Long> {
+
+		private long from;
+		private long to;
+
+		LineCounter(long from, long to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		public Long call() throws IOException {
+			MappedByteBuffer buffer = channel.map(
+					FileChannel.MapMode.READ_ONLY, from, to - from);
+			long count = 0;
+			int length = buffer.limit();
+			for (int i = 0; i < length; i++) {
+				if (buffer.get(i) == '\n') {
+					count++;
+				}
+			}
+			return count;
+		}
+	}
+
+	/**
+	 * Parses the vertices and triangles whose lines start in a chunk of the
+	 * file.
+	 */
+	private class ChunkParser implements Callable<ChunkParser> {
+
+		private long from;
+		private long to;
+		private long linesBefore;
+		private int headerLine;
+		private long start;
+		private long size;
+		private double[] positions;
+		private int[] indices;
+
+		/**
+		 * The first syntax error in the chunk, if any.
+		 */
+		private NonConformantSceneFile error;
+
+		/**
+		 * The offset after the last triangle, if it is in this chunk.
+		 */
+		private long end = -1;
+
+		ChunkParser(long from, long to, long linesBefore, int headerLine,
+				long start, long size, double[] positions, int[] indices) {
+			this.from = from;
+			this.to = to;
+			this.linesBefore = linesBefore;
+			this.headerLine = headerLine;
+			this.start = start;
+			this.size = size;
+			this.positions = positions;
+			this.indices = indices;
+		}
+
+		@Override
+		public ChunkParser call() throws IOException {
+			int overlap = LINE_OVERLAP;
+			try {
+				while (!parse(overlap)) {
+					//The last line did not fit, map a bigger window
+					overlap *= 2;
+				}
+			} catch (NonConformantSceneFile e) {
+				this.error = e;
+			}
+			return this;
+		}
+
+		/**
+		 * Parses the chunk.
+		 * @param overlap how much past the chunk's end to map
+		 * @return	<code>false</code> if a line did not fit in the mapped
+		 * 			window, <code>true</code> otherwise
+		 */
+		private boolean parse(int overlap) throws IOException,
+												NonConformantSceneFile {
+			int numVertices = positions.length / 3;
+			long numLines = (long) numVertices + (indices.length / 3);
+			if (linesBefore >= numLines) {
+				return true;
+			}
+			//Map from the byte before the chunk to see if a line starts here
+			long windowStart = from == start ? from : from - 1;
+			long windowEnd = Math.min(size, Math.min(to + overlap,
+					windowStart + Integer.MAX_VALUE));
+			MappedByteBuffer buffer = channel.map(
+					FileChannel.MapMode.READ_ONLY, windowStart,
+					windowEnd - windowStart);
+			int length = buffer.limit();
+			byte[] data = buffers.poll();
+			if (data == null || data.length < length) {
+				data = new byte[Math.max(length, CHUNK_SIZE + LINE_OVERLAP)];
+			}
+			try {
+				buffer.get(data, 0, length);
+				return parse(data, length, windowStart, windowEnd);
+			} finally {
+				buffers.add(data);
+			}
+		}
+
+		/**
+		 * Parses the chunk from a copy of the mapped window.
+		 * @param data			the bytes of the window
+		 * @param length		how many bytes of <code>data</code> are in it
+		 * @param windowStart	the offset of the window in the file
+		 * @param windowEnd		the offset of the end of the window
+		 * @return	<code>false</code> if a line did not fit in the window, 
+		 * 			<code>true</code> otherwise
+		 */
+		private boolean parse(byte[] data, int length, long windowStart,
+				long windowEnd) throws IOException, NonConformantSceneFile {
+			int numVertices = positions.length / 3;
+			long numLines = (long) numVertices + (indices.length / 3);
+			long line = linesBefore;
+			int first = 0;
+			if (windowStart != from) {
+				first = 1;
+				if (data[0] != '\n') {
+					//The chunk starts in the middle of a line, skip it
+					int chunkLength = (int) (to - windowStart);
+					while (first < chunkLength && data[first] != '\n') {
+						first++;
+					}
+					if (first == chunkLength) {
+						return true;
+					}
+					first++;
+					line++;
+				}
+			}
+
+			ByuReader reader = new ByuReader(data, first, length,
+					windowStart, (int) (headerLine + line));
+			for (; line < numLines; line++) {
+				if (reader.getOffset() >= to || !reader.nextLine()) {
+					break;
+				}
+				if (reader.isLineUnterminated() && windowEnd < size) {
+					return false;
+				}
+				if (line < numVertices) {
+					SceneController.readVertex(reader, positions, (int) line);
+				} else {
+					SceneController.readTriangle(reader, indices,
+							(int) (line - numVertices), numVertices);
+				}
+				if (line == numLines - 1) {
+					end = reader.getOffset();
+				}
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Checks that files load the same in parallel as one line after the 
+	 * other: the same vertices, normals and triangles, or the same error. 
+	 * Compiled sidecars are not used.
+	 * @param args	the .byu files to check
+	 */
+	public static void main(String[] args) {
+		if (args.length == 0) {
+			System.err.println("Usage: MappedByuLoader file.byu [file.byu ...]");
+			System.exit(1);
+		}
+		SceneController sc = SceneController.getInstance();
+		sc.setUseCompiledScenes(false);
+		boolean failed = false;
+		for (String arg : args) {
+			File file = new File(arg);
+			sc.setParallelLoadThreshold(0);
+			Object parallel = load(sc, file);
+			sc.setParallelLoadThreshold(Long.MAX_VALUE);
+			Object sequential = load(sc, file);
+			boolean same;
+			if (parallel instanceof Mesh && sequential instanceof Mesh) {
+				Mesh a = (Mesh) parallel;
+				Mesh b = (Mesh) sequential;
+				same = Arrays.equals(a.getPositions(), b.getPositions()) &&
+						Arrays.equals(a.getNormals(), b.getNormals()) &&
+						Arrays.equals(a.getIndices(), b.getIndices());
+			} else {
+				same = parallel.equals(sequential);
+			}
+			System.out.println(file+": "+(same ? "same" : "DIFFERENT")
+					+(parallel instanceof String ? " ("+parallel+")" : ""));
+			failed |= !same;
+		}
+		if (failed) {
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Loads a file, returning its <code>Mesh</code>, or the message of 
+	 * the error it has.
+	 */
+	private static Object load(SceneController sc, File file) {
+		try {
+			sc.loadScene(file);
+			return sc.getScene().getMesh();
+		} catch (IOException | NonConformantSceneFile e) {
+			return e.getMessage();
+		}
+	}
+
+}
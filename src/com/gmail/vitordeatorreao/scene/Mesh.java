@@ -0,0 +1,258 @@
+package com.gmail.vitordeatorreao.scene;
+
+import com.gmail.vitordeatorreao.math.Vector;
+import com.gmail.vitordeatorreao.math.Vertex;
+
+/**
+ * This class implements an indexed triangle Mesh.<br>
+ * The vertices and triangles are kept in flat arrays of primitives instead
+ * of one object per element: three coordinates per vertex for positions and
+ * normals, and three zero-based vertex indices per triangle. This is the
+ * storage a <code>Scene</code> keeps its objects in.
+ * <p>
+ * {@link Triangle} and {@link Vertex} objects for the elements of the
+ * <code>Mesh</code> are only created on demand, as views, by
+ * {@link #getTriangle(int)} and {@link #getVertex(int)}.
+ * <p>
+ * This code is available through the
+ * <a href="http://www.gnu.org/licenses/gpl-2.0.html">GNU GPL v2.0</a> license.
+ * <br>
+ * You can acess the full project at
+ * <a href="https://github.com/vitordeatorreao/bcgproject1">GitHub</a>.
+ * @author	<a href="https://github.com/vitordeatorreao/">V&iacute;tor de
+ * 			Albuquerque Torre&atilde;o</a>
+ * @version 1.0
+ * @since 1.0
+ */
+public class Mesh {
+
+	private double[] positions;
+	private double[] normals;
+	private int[] indices;
+	private int numVertices;
+	private int numTriangles;
+	private int version;
+
+	/**
+	 * Creates an empty <code>Mesh</code>. Triangles can be added later.
+	 */
+	public Mesh() {
+		this.positions = new double[0];
+		this.normals = new double[0];
+		this.indices = new int[0];
+	}
+
+	/**
+	 * Creates a <code>Mesh</code> over already loaded arrays. The arrays
+	 * are not copied.
+	 * @param positions	The coordinates of the vertices, three per vertex
+	 * @param normals	The normals of the vertices, three per vertex
+	 * @param indices	The zero-based vertex indices, three per triangle
+	 */
+	public Mesh(double[] positions, double[] normals, int[] indices) {
+		if (positions.length != normals.length ||
+				positions.length % 3 != 0 || indices.length % 3 != 0) {
+			throw new IllegalArgumentException("A Mesh needs three "
+					+ "coordinates and one normal per vertex and three "
+					+ "indices per triangle");
+		}
+		this.positions = positions;
+		this.normals = normals;
+		this.indices = indices;
+		this.numVertices = positions.length / 3;
+		this.numTriangles = indices.length / 3;
+	}
+
+	/**
+	 * Returns a number which changes every time triangles are added to 
+	 * this <code>Mesh</code> or moved in it, so what was computed from it 
+	 * can be kept until then.
+	 * @return the version of this <code>Mesh</code>
+	 */
+	public int getVersion() {
+		return version;
+	}
+
+	/**
+	 * Returns the number of vertices in this <code>Mesh</code>.
+	 * @return the number of vertices
+	 */
+	public int getNumVertices() {
+		return numVertices;
+	}
+
+	/**
+	 * Returns the number of triangles in this <code>Mesh</code>.
+	 * @return the number of triangles
+	 */
+	public int getNumTriangles() {
+		return numTriangles;
+	}
+
+	/**
+	 * Returns the coordinates of all vertices, three per vertex. The array
+	 * may be longer than <code>3 * getNumVertices()</code>.
+	 * @return the backing array of positions
+	 */
+	public double[] getPositions() {
+		return positions;
+	}
+
+	/**
+	 * Returns the normals of all vertices, three per vertex. The array
+	 * may be longer than <code>3 * getNumVertices()</code>.
+	 * @return the backing array of normals
+	 */
+	public double[] getNormals() {
+		return normals;
+	}
+
+	/**
+	 * Returns the vertex indices of all triangles, three per triangle. The
+	 * array may be longer than <code>3 * getNumTriangles()</code>.
+	 * @return the backing array of indices
+	 */
+	public int[] getIndices() {
+		return indices;
+	}
+
+	/**
+	 * Returns the index of one of the vertices of a triangle.
+	 * @param triangle	The index of the triangle
+	 * @param k			Which of its vertices: 0, 1 or 2
+	 * @return the index of the vertex
+	 */
+	public int getIndex(int triangle, int k) {
+		return indices[3*triangle + k];
+	}
+
+	/**
+	 * Returns a view of one of the triangles. The view is only valid until
+	 * the triangles of this <code>Mesh</code> are reordered or removed.
+	 * @param triangle The index of the triangle
+	 * @return a <code>Triangle</code> for it
+	 */
+	public Triangle getTriangle(int triangle) {
+		return new Triangle(this, triangle);
+	}
+
+	/**
+	 * Returns a copy of one of the vertices, with its normal.
+	 * @param vertex The index of the vertex
+	 * @return a <code>Vertex</code> for it
+	 */
+	public Vertex getVertex(int vertex) {
+		int o = 3 * vertex;
+		Vertex v = new Vertex(new double[] {
+				positions[o], positions[o + 1], positions[o + 2]
+		});
+		v.setNormal(new Vector(new double[] {
+				normals[o], normals[o + 1], normals[o + 2]
+		}));
+		return v;
+	}
+
+	/**
+	 * Appends a standalone <code>Triangle</code> to this <code>Mesh</code>.
+	 * Its three vertices are added as new vertices.
+	 * @param t the <code>Triangle</code> to be added
+	 */
+	public void addTriangle(Triangle t) {
+		ensureCapacity(numVertices + 3, numTriangles + 1);
+		for (int k = 0; k < 3; k++) {
+			Vertex v = t.getVertex(k);
+			int o = 3 * numVertices;
+			positions[o]		= v.getCoord(0);
+			positions[o + 1]	= v.getCoord(1);
+			positions[o + 2]	= v.getCoord(2);
+			Vector n = v.getNormal();
+			if (n != null) {
+				normals[o]		= n.get(0);
+				normals[o + 1]	= n.get(1);
+				normals[o + 2]	= n.get(2);
+			}
+			indices[3*numTriangles + k] = numVertices;
+			numVertices++;
+		}
+		numTriangles++;
+		version++;
+	}
+
+	/**
+	 * Grows the backing arrays so they fit at least the given sizes.
+	 */
+	private void ensureCapacity(int vertices, int triangles) {
+		if (3 * vertices > positions.length) {
+			int capacity = Math.max(3 * vertices, 2 * positions.length);
+			double[] p = new double[capacity];
+			double[] n = new double[capacity];
+			System.arraycopy(positions, 0, p, 0, 3 * numVertices);
+			System.arraycopy(normals, 0, n, 0, 3 * numVertices);
+			positions = p;
+			normals = n;
+		}
+		if (3 * triangles > indices.length) {
+			int capacity = Math.max(3 * triangles, 2 * indices.length);
+			int[] i = new int[capacity];
+			System.arraycopy(indices, 0, i, 0, 3 * numTriangles);
+			indices = i;
+		}
+	}
+
+	/**
+	 * Swaps the positions of two triangles in this <code>Mesh</code>.
+	 * @param i The index of a triangle
+	 * @param j The index of the other triangle
+	 */
+	public void swapTriangles(int i, int j) {
+		for (int k = 0; k < 3; k++) {
+			int temp = indices[3*i + k];
+			indices[3*i + k] = indices[3*j + k];
+			indices[3*j + k] = temp;
+		}
+		version++;
+	}
+
+	/**
+	 * Puts the triangles of this <code>Mesh</code> in a new order. Only 
+	 * the indices are moved, the vertices stay where they are.
+	 * @param order	The new order: the triangle at position <code>i</code> 
+	 * 				is the one which was at <code>order[i]</code>
+	 */
+	public void reorderTriangles(int[] order) {
+		if (order.length != numTriangles) {
+			throw new IllegalArgumentException("The order must have one "
+					+ "position for each of the "+numTriangles+" triangles");
+		}
+		int[] reordered = new int[indices.length];
+		for (int i = 0; i < numTriangles; i++) {
+			int from = 3 * order[i];
+			reordered[3*i]		= indices[from];
+			reordered[3*i + 1]	= indices[from + 1];
+			reordered[3*i + 2]	= indices[from + 2];
+		}
+		indices = reordered;
+		version++;
+	}
+	
+	/**
+	 * Returns the squared distance between the centroid of a triangle and
+	 * a point.
+	 * @param triangle	The index of the triangle
+	 * @param point		The point
+	 * @return the squared distance
+	 */
+	public double centroidDistanceSq(int triangle, Vertex point) {
+		int a = 3 * indices[3*triangle];
+		int b = 3 * indices[3*triangle + 1];
+		int c = 3 * indices[3*triangle + 2];
+		double dx = ((positions[a] + positions[b] + positions[c]) / 3.0)
+				- point.getCoord(0);
+		double dy = ((positions[a + 1] + positions[b + 1] +
+				positions[c + 1]) / 3.0) - point.getCoord(1);
+		double dz = ((positions[a + 2] + positions[b + 2] +
+				positions[c + 2]) / 3.0) - point.getCoord(2);
+		return dx*dx + dy*dy + dz*dz;
+	}
+
+}
@@ -0,0 +1,38 @@
+package com.gmail.vitordeatorreao.scene;
+
+/**
+ * This enumeration lists the ways the normals of the faces around a
+ * <code>Vertex</code> can be weighted when calculating the
+ * <code>Vertex</code>'s normal.
+ * <p>
+ * This code is available through the
+ * <a href="http://www.gnu.org/licenses/gpl-2.0.html">GNU GPL v2.0</a> license.
+ * <br>
+ * You can acess the full project at
+ * <a href="https://github.com/vitordeatorreao/bcgproject1">GitHub</a>.
+ * @author	<a href="https://github.com/vitordeatorreao/">V&iacute;tor de
+ * 			Albuquerque Torre&atilde;o</a>
+ * @version 1.0
+ * @since 1.0
+ */
+public enum NormalWeighting {
+
+	/**
+	 * Every adjacent <code>Triangle</code> contributes its normalized
+	 * normal. This is how vertex normals have always been calculated.
+	 */
+	UNIFORM,
+
+	/**
+	 * Every adjacent <code>Triangle</code> contributes proportionally
+	 * to its area.
+	 */
+	AREA,
+
+	/**
+	 * Every adjacent <code>Triangle</code> contributes proportionally
+	 * to its interior angle at the <code>Vertex</code>.
+	 */
+	ANGLE
+
+}
@@ -1,11 +1,18 @@
 package com.gmail.vitordeatorreao.scene;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
-import com.gmail.vitordeatorreao.utils.QuickSortTriangles;
+import java.util.List;
+
+import com.gmail.vitordeatorreao.utils.RadixSortTriangles;
 
 /**
  * This class implements a Scene.
  * A Scene contains the triangle faces of visual objects and a camera.
+ * The triangle faces are stored in a {@link Mesh}.
+ * <p>
+ * A <code>Scene</code> has a version, which changes whenever anything in it 
+ * does, so whoever draws it can tell if a picture of it is still current.
  * <p>
  * This code is available through the 
  * <a href="http://www.gnu.org/licenses/gpl-2.0.html">GNU GPL v2.0</a> license.
@@ -19,9 +26,21 @@ import com.gmail.vitordeatorreao.utils.QuickSortTriangles;
  */
 public class Scene {
 	
-	private Camera camera;
-	private ArrayList<Triangle> triangles;
-	private Light light;
+	/**
+	 * They are volatile because a new <code>Mesh</code> is loaded on the 
+	 * render thread while the event dispatch thread reads them.
+	 */
+	private volatile Camera camera;
+	private volatile Mesh mesh;
+	private volatile Light light;
+	private final RadixSortTriangles sorter = new RadixSortTriangles();
+	
+	/**
+	 * The version of this <code>Scene</code>, and the version its 
+	 * <code>Mesh</code> had when it was last read.
+	 */
+	private long version;
+	private int meshVersion;
 	
 	/**
 	 * Instantiates an empty <code>Scene</code>. 
@@ -30,7 +49,7 @@ public class Scene {
 	 */
 	public Scene() {
 		this.camera = null;
-		this.triangles = new ArrayList<Triangle>();
+		this.mesh = new Mesh();
 	}
 	
 	/**
@@ -40,7 +59,7 @@ public class Scene {
 	 */
 	public Scene(Camera c) {
 		this.camera = c;
-		this.triangles = new ArrayList<Triangle>();
+		this.mesh = new Mesh();
 	}
 	
 	/**
@@ -52,7 +71,10 @@ public class Scene {
 	 */
 	public Scene(Camera c, ArrayList<Triangle> triangles) {
 		this.camera = c;
-		this.triangles = triangles;
+		this.mesh = new Mesh();
+		for (Triangle t : triangles) {
+			this.mesh.addTriangle(t);
+		}
 	}
 	
 	/**
@@ -61,6 +83,7 @@ public class Scene {
 	 */
 	public void setCamera(Camera c) {
 		this.camera = c;
+		changed();
 	}
 	
 	/**
@@ -68,7 +91,8 @@ public class Scene {
 	 * @param triangle A <code>Triangle</code> object
 	 */
 	public void addTriangle(Triangle triangle) {
-		this.triangles.add(triangle);
+		this.mesh.addTriangle(triangle);
+		changed();
 	}
 
 	/**
@@ -85,29 +109,92 @@ public class Scene {
 
 	public void setLight(Light light) {
 		this.light = light;
+		changed();
 	}
 
+	/**
+	 * Returns the <code>Mesh</code> with the triangles of this scene.
+	 * @return the <code>Mesh</code>
+	 */
+	public Mesh getMesh() {
+		return mesh;
+	}
+	
+	/**
+	 * Replaces the triangles of this scene.
+	 * @param mesh the new <code>Mesh</code>
+	 */
+	public void setMesh(Mesh mesh) {
+		this.mesh = mesh;
+		changed();
+	}
+	
 	/**
 	 * Returns a list of <code>Triangle</code>s that are part of this scene.
-	 * @return an <code>ArrayList</code> of <code>Triangle</code>s.
+	 * <br />
+	 * The list is a read-only view of the <code>Mesh</code>. Each call to 
+	 * <code>get</code> creates a new <code>Triangle</code> view, so 
+	 * performance sensitive code should use {@link #getMesh()} instead.
+	 * @return a <code>List</code> of <code>Triangle</code>s.
 	 */
-	public ArrayList<Triangle> getTriangles() {
-		return triangles;
+	public List<Triangle> getTriangles() {
+		final Mesh m = this.mesh;
+		return new AbstractList<Triangle>() {
+			
+			@Override
+			public Triangle get(int index) {
+				if (index < 0 || index >= m.getNumTriangles()) {
+					throw new IndexOutOfBoundsException("Index: "+index);
+				}
+				return m.getTriangle(index);
+			}
+			
+			@Override
+			public int size() {
+				return m.getNumTriangles();
+			}
+		};
 	}
 	
 	/**
 	 * Erases the list of Triangles.
 	 */
 	public void cleanTriangles() {
-		this.triangles = new ArrayList<Triangle>();
+		this.mesh = new Mesh();
+		changed();
+	}
+	
+	/**
+	 * Returns the version of this <code>Scene</code>. It changes whenever 
+	 * the <code>Camera</code>, the <code>Light</code> or the triangles do, 
+	 * including changes made straight to the <code>Mesh</code>, so two 
+	 * equal versions mean the <code>Scene</code> looks the same.
+	 * @return the version
+	 */
+	public synchronized long getVersion() {
+		if (mesh.getVersion() != meshVersion) {
+			meshVersion = mesh.getVersion();
+			version++;
+		}
+		return version;
+	}
+	
+	/**
+	 * Marks this <code>Scene</code> as changed, giving it a new version.
+	 */
+	synchronized void changed() {
+		meshVersion = mesh.getVersion();
+		version++;
 	}
 	
 	/**
-	 * Sorts the list of triangles by their centroids.
+	 * Sorts the list of triangles by their centroids.<br>
+	 * After the first time, the previous order is repaired instead of 
+	 * sorted from scratch, which is much faster while the 
+	 * <code>Camera</code> only moves a little between calls.
 	 */
 	public void sortTriangles() {
-		QuickSortTriangles qst = new QuickSortTriangles();
-		qst.sort(triangles);
+		sorter.sort(mesh, camera.getFocus());
 	}
 	
 	@Override
@@ -116,7 +203,7 @@ public class Scene {
 		if (this.camera != null) {
 			s += this.camera.toString() + ",";
 		}
-		for (Triangle t : this.triangles) {
+		for (Triangle t : this.getTriangles()) {
 			s += "\n\n"+t.toString();
 		}
 		s += "}\n";
@@ -0,0 +1,369 @@
+package com.gmail.vitordeatorreao.scene;
+
+import java.awt.Color;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import com.gmail.vitordeatorreao.math.Vector;
+import com.gmail.vitordeatorreao.math.Vertex;
+
+/**
+ * This class implements a compact binary scene format and the compiler
+ * which converts .byu files to it.<br>
+ * A compiled scene holds the vertex positions, the already calculated vertex
+ * normals, the triangle indices and the <code>Camera</code> and
+ * <code>Light</code> parameters. Reading it is a memory-mapped bulk copy,
+ * with no parsing and no normals to calculate.
+ * <p>
+ * The file is little-endian and laid out as follows:
+ * <pre>
+ * offset  content
+ *      0  magic "BCGS", format version
+ *      8  length and last modification time of the source .byu file
+ *     24  flags (1 = objects, 2 = camera, 4 = light),
+ *         number of vertices, number of triangles, 
+ *         {@link NormalWeighting} of the normals
+ *     40  camera: C, N, V, d, hx, hy (12 doubles)
+ *    136  light: Iamb and Il RGB (6 ints), Ka, Ks, eta, Kd, Od, Pl
+ *         (12 doubles)
+ *    256  positions (3 doubles per vertex), normals (3 doubles per
+ *         vertex), indices (3 ints per triangle)
+ * </pre>
+ * <p>
+ * The normals depend on the <code>NormalWeighting</code> they were 
+ * calculated with, so a compiled file is only used in place of its source 
+ * while the same weighting is asked for.
+ * <p>
+ * This code is available through the
+ * <a href="http://www.gnu.org/licenses/gpl-2.0.html">GNU GPL v2.0</a> license.
+ * <br>
+ * You can acess the full project at
+ * <a href="https://github.com/vitordeatorreao/bcgproject1">GitHub</a>.
+ * @author	<a href="https://github.com/vitordeatorreao/">V&iacute;tor de
+ * 			Albuquerque Torre&atilde;o</a>
+ * @version 1.0
+ * @since 1.0
+ */
+public class SceneCompiler {
+
+	/**
+	 * The extension appended to a .byu file's name to name its compiled
+	 * sidecar.
+	 */
+	public static final String EXTENSION = ".bcgs";
+
+	private static final int MAGIC = 0x53474342; // "BCGS"
+	private static final int VERSION = 2;
+	private static final int HEADER_SIZE = 256;
+
+	private static final int HAS_OBJECTS = 1;
+	private static final int HAS_CAMERA = 2;
+	private static final int HAS_LIGHT = 4;
+
+	/**
+	 * The largest window mapped at once. It is a multiple of 8, so windows
+	 * never split a value.
+	 */
+	private static final int WINDOW = 1 << 30;
+
+	/**
+	 * Returns the compiled sidecar of a .byu file.
+	 * @param byu The .byu file
+	 * @return the file where its compiled version is cached
+	 */
+	public static File getSidecar(File byu) {
+		return new File(byu.getPath() + EXTENSION);
+	}
+
+	/**
+	 * Returns whether a compiled file was compiled from the current
+	 * version of a .byu file, with normals weighted as asked.
+	 * @param compiled	The compiled file
+	 * @param source	The .byu file it was compiled from
+	 * @param weighting	How the normals must be weighted
+	 * @return	<code>true</code> if the compiled file can be used in place
+	 * 			of the source, <code>false</code> otherwise.
+	 */
+	public static boolean isFresh(File compiled, File source, 
+			NormalWeighting weighting) {
+		if (!compiled.isFile() || !source.isFile()) {
+			return false;
+		}
+		try (RandomAccessFile raf = new RandomAccessFile(compiled, "r")) {
+			if (raf.length() < HEADER_SIZE) {
+				return false;
+			}
+			ByteBuffer header = ByteBuffer.allocate(40)
+					.order(ByteOrder.LITTLE_ENDIAN);
+			raf.getChannel().read(header, 0);
+			return header.getInt(0) == MAGIC &&
+					header.getInt(4) == VERSION &&
+					header.getLong(8) == source.length() &&
+					header.getLong(16) == source.lastModified() &&
+					header.getInt(36) == weighting.ordinal();
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Writes the contents of a <code>Scene</code> to a compiled file.
+	 * @param scene			The <code>Scene</code> to be written
+	 * @param out			The compiled file
+	 * @param source		The .byu file the scene was loaded from
+	 * @param hasObjects	Whether the .byu file has objects, even empty 
+	 * 						ones, which replace those of the 
+	 * 						<code>Scene</code> it is loaded into
+	 * @param weighting		How the normals of the <code>Mesh</code> were 
+	 * 						weighted
+	 * @throws IOException In case there is a problem writing the file
+	 */
+	static void write(Scene scene, File out, File source, boolean hasObjects,
+			NormalWeighting weighting) throws IOException {
+		Mesh mesh = scene.getMesh();
+		int numVertices = mesh.getNumVertices();
+		int numTriangles = mesh.getNumTriangles();
+
+		int flags = 0;
+		if (hasObjects) {
+			flags |= HAS_OBJECTS;
+		}
+		Camera camera = scene.getCamera();
+		if (camera != null) {
+			flags |= HAS_CAMERA;
+		}
+		Light light = scene.getLight();
+		if (light != null) {
+			flags |= HAS_LIGHT;
+		}
+
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+				.order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(MAGIC).putInt(VERSION);
+		header.putLong(source.length()).putLong(source.lastModified());
+		header.putInt(flags).putInt(numVertices)
+				.putInt(numTriangles).putInt(weighting.ordinal());
+		if (camera != null) {
+			putVertex(header, camera.getFocus());
+			putVector(header, camera.getN());
+			putVector(header, camera.getV());
+			header.putDouble(camera.getD()).putDouble(camera.getHx())
+					.putDouble(camera.getHy());
+		}
+		header.position(136);
+		if (light != null) {
+			putColor(header, light.getiAmb());
+			putColor(header, light.getiL());
+			header.putDouble(light.getkA()).putDouble(light.getkS())
+					.putDouble(light.getN());
+			putVector(header, light.getkD());
+			putVector(header, light.getoD());
+			putVertex(header, light.getpL());
+		}
+		header.clear();
+
+		try (RandomAccessFile raf = new RandomAccessFile(out, "rw")) {
+			raf.setLength(0);
+			FileChannel channel = raf.getChannel();
+			while (header.hasRemaining()) {
+				channel.write(header);
+			}
+			ByteBuffer buffer = ByteBuffer.allocate(1 << 20)
+					.order(ByteOrder.LITTLE_ENDIAN);
+			double[] positions = mesh.getPositions();
+			for (int i = 0; i < 3 * numVertices; i++) {
+				flushIfFull(channel, buffer, 8);
+				buffer.putDouble(positions[i]);
+			}
+			double[] normals = mesh.getNormals();
+			for (int i = 0; i < 3 * numVertices; i++) {
+				flushIfFull(channel, buffer, 8);
+				buffer.putDouble(normals[i]);
+			}
+			int[] indices = mesh.getIndices();
+			for (int i = 0; i < 3 * numTriangles; i++) {
+				flushIfFull(channel, buffer, 4);
+				buffer.putInt(indices[i]);
+			}
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		}
+	}
+
+	/**
+	 * Reads a compiled file into a <code>Scene</code>. Only the elements
+	 * present in the file replace those of the <code>Scene</code>, just
+	 * like loading the .byu file would. An object without triangles still 
+	 * replaces the triangles of the <code>Scene</code>.
+	 * @param file	The compiled file
+	 * @param scene	The <code>Scene</code> that receives its contents
+	 * @throws IOException In case there is a problem reading the file
+	 * @throws NonConformantSceneFile In case the file is not a compiled scene
+	 */
+	static void read(File file, Scene scene) throws IOException,
+											NonConformantSceneFile {
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+			FileChannel channel = raf.getChannel();
+			if (channel.size() < HEADER_SIZE) {
+				throw new NonConformantSceneFile("Not a compiled scene: "
+						+file.getName());
+			}
+			ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY,
+					0, HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+				throw new NonConformantSceneFile("Not a compiled scene: "
+						+file.getName());
+			}
+			header.position(24);
+			int flags = header.getInt();
+			int numVertices = header.getInt();
+			int numTriangles = header.getInt();
+			long expected = HEADER_SIZE + (48L * numVertices) +
+					(12L * numTriangles);
+			if (numVertices < 0 || numTriangles < 0 ||
+					channel.size() != expected) {
+				throw new NonConformantSceneFile("The compiled scene "
+						+file.getName()+" is truncated");
+			}
+
+			header.position(40);
+			if ((flags & HAS_CAMERA) != 0) {
+				Vertex C = new Vertex(getDoubles(header));
+				Vector N = new Vector(getDoubles(header));
+				Vector V = new Vector(getDoubles(header));
+				scene.setCamera(new Camera(C, N, V, header.getDouble(),
+						header.getDouble(), header.getDouble()));
+			}
+			header.position(136);
+			if ((flags & HAS_LIGHT) != 0) {
+				Color iAmb = new Color(header.getInt(), header.getInt(),
+						header.getInt());
+				Color iL = new Color(header.getInt(), header.getInt(),
+						header.getInt());
+				double kA = header.getDouble();
+				double kS = header.getDouble();
+				double n = header.getDouble();
+				Vector kD = new Vector(getDoubles(header));
+				Vector oD = new Vector(getDoubles(header));
+				Vertex pL = new Vertex(getDoubles(header));
+				scene.setLight(new Light(iAmb, iL, kA, kS, n, kD, oD, pL));
+			}
+
+			if ((flags & HAS_OBJECTS) != 0) {
+				double[] positions = new double[3 * numVertices];
+				double[] normals = new double[3 * numVertices];
+				int[] indices = new int[3 * numTriangles];
+				long offset = HEADER_SIZE;
+				readDoubles(channel, offset, positions);
+				offset += 8L * positions.length;
+				readDoubles(channel, offset, normals);
+				offset += 8L * normals.length;
+				readInts(channel, offset, indices);
+				for (int index : indices) {
+					if (index < 0 || index >= numVertices) {
+						throw new NonConformantSceneFile("The compiled "
+								+ "scene "+file.getName()+" has a vertex "
+								+ "index out of range");
+					}
+				}
+				scene.setMesh(new Mesh(positions, normals, indices));
+			}
+		}
+	}
+
+	/**
+	 * Copies doubles from the file into an array, one mapped window at a
+	 * time.
+	 */
+	private static void readDoubles(FileChannel channel, long offset,
+			double[] dest) throws IOException {
+		int done = 0;
+		while (done < dest.length) {
+			int count = Math.min(dest.length - done, WINDOW / 8);
+			MappedByteBuffer window = channel.map(
+					FileChannel.MapMode.READ_ONLY, offset, 8L * count);
+			window.order(ByteOrder.LITTLE_ENDIAN);
+			window.asDoubleBuffer().get(dest, done, count);
+			offset += 8L * count;
+			done += count;
+		}
+	}
+
+	/**
+	 * Copies ints from the file into an array, one mapped window at a time.
+	 */
+	private static void readInts(FileChannel channel, long offset,
+			int[] dest) throws IOException {
+		int done = 0;
+		while (done < dest.length) {
+			int count = Math.min(dest.length - done, WINDOW / 4);
+			MappedByteBuffer window = channel.map(
+					FileChannel.MapMode.READ_ONLY, offset, 4L * count);
+			window.order(ByteOrder.LITTLE_ENDIAN);
+			window.asIntBuffer().get(dest, done, count);
+			offset += 4L * count;
+			done += count;
+		}
+	}
+
+	private static double[] getDoubles(ByteBuffer b) {
+		return new double[] {b.getDouble(), b.getDouble(), b.getDouble()};
+	}
+
+	private static void putVertex(ByteBuffer b, Vertex v) {
+		b.putDouble(v.getCoord(0)).putDouble(v.getCoord(1))
+				.putDouble(v.getCoord(2));
+	}
+
+	private static void putVector(ByteBuffer b, Vector v) {
+		b.putDouble(v.get(0)).putDouble(v.get(1)).putDouble(v.get(2));
+	}
+
+	private static void putColor(ByteBuffer b, Color c) {
+		b.putInt(c.getRed()).putInt(c.getGreen()).putInt(c.getBlue());
+	}
+
+	/**
+	 * Writes the buffer out if there is no room for more bytes.
+	 */
+	private static void flushIfFull(FileChannel channel, ByteBuffer buffer,
+			int needed) throws IOException {
+		if (buffer.remaining() < needed) {
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			buffer.clear();
+		}
+	}
+
+	/**
+	 * Compiles .byu files into their sidecars, so later loads of the same
+	 * files are nearly instant.
+	 * @param args	the .byu files to be compiled
+	 */
+	public static void main(String[] args) {
+		if (args.length == 0) {
+			System.err.println("Usage: SceneCompiler file.byu [file.byu ...]");
+			System.exit(1);
+		}
+		for (String arg : args) {
+			File byu = new File(arg);
+			File out = getSidecar(byu);
+			try {
+				SceneController.getInstance().compileScene(byu, out);
+				System.out.println(byu+" -> "+out);
+			} catch (IOException | NonConformantSceneFile e) {
+				System.err.println(byu+": "+e.getMessage());
+			}
+		}
+	}
+
+}
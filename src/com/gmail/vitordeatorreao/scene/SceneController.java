@@ -1,10 +1,10 @@
 package com.gmail.vitordeatorreao.scene;
 
 import java.awt.Color;
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 
 import com.gmail.vitordeatorreao.math.Vector;
 import com.gmail.vitordeatorreao.math.Vertex;
@@ -26,6 +26,11 @@ import com.gmail.vitordeatorreao.math.Vertex;
  */
 public class SceneController {
 	
+	/**
+	 * The longest array the JVM can safely allocate.
+	 */
+	static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+	
 	/**
 	 * Singleton Pattern
 	 */
@@ -44,7 +49,14 @@ public class SceneController {
 	}
 	
 	private Scene scene;
-	private BufferedReader bfr;
+	private NormalWeighting normalWeighting = NormalWeighting.UNIFORM;
+	private long parallelLoadThreshold = 32L << 20;
+	private boolean useCompiledScenes = true;
+	
+	/**
+	 * The file being loaded, in case its objects are parsed in parallel.
+	 */
+	private FileChannel channel;
 	
 	/**
 	 * This private constructor is part of the Singleton Pattern.
@@ -58,7 +70,10 @@ public class SceneController {
 	}
 	
 	/**
-	 * Loads scene elements from .byu files.
+	 * Loads scene elements from .byu files.<br />
+	 * If the file has a fresh compiled sidecar (see {@link SceneCompiler}), 
+	 * with normals weighted by the current <code>NormalWeighting</code>, 
+	 * the sidecar is read instead.
 	 * @param	file The file to read the scene elements from
 	 * @throws	IOException In case there is a problem reading the file
 	 * @throws	NonConformantSceneFile In case the file doesn't respect 
@@ -66,23 +81,19 @@ public class SceneController {
 	 */
 	public void loadScene(File file) throws IOException, 
 										NonConformantSceneFile {
-		bfr = new BufferedReader(new FileReader(file));
-		
-		
-		
-		String line = null;
-		while ( (line = bfr.readLine()) != null ) {
-			if (line.equals("\n")) {
-				continue;
-			}
-			String[] args = line.split(" ");
-			if (args.length == 2) {
-				loadObjects(line);
-			} else if (args.length == 3){
-				loadCamera(line);
+		File sidecar = SceneCompiler.getSidecar(file);
+		try {
+			if (this.useCompiledScenes && 
+					SceneCompiler.isFresh(sidecar, file, 
+							this.normalWeighting)) {
+				SceneCompiler.read(sidecar, this.scene);
+			} else {
+				readByu(file);
 			}
+		} finally {
+			//Even a file that failed to load may have changed the scene
+			this.scene.changed();
 		}
-		bfr.close();
 		
 		/* Sort the triangles only if there are triangles AND
 		 * a camera has been instantiated 
@@ -94,13 +105,66 @@ public class SceneController {
 	}
 	
 	/**
-	 * From a Line string starts to load objects into memory
-	 * @param line A line from a BYU file
-	 * @throws IOException If <code>BufferedReader</code> stops working
+	 * Compiles a .byu file into the binary format of 
+	 * {@link SceneCompiler}. The current <code>Scene</code> is left 
+	 * untouched.
+	 * @param	byu The .byu file to be compiled
+	 * @param	out The compiled file to be written
+	 * @throws	IOException In case there is a problem reading or writing
+	 * @throws	NonConformantSceneFile In case the file doesn't respect 
+	 * 			the .byu standard
+	 */
+	public void compileScene(File byu, File out) throws IOException, 
+											NonConformantSceneFile {
+		Scene loaded = this.scene;
+		this.scene = new Scene();
+		try {
+			Mesh empty = this.scene.getMesh();
+			readByu(byu);
+			//Loading objects always replaces the mesh, even by an empty one
+			boolean hasObjects = this.scene.getMesh() != empty;
+			SceneCompiler.write(this.scene, out, byu, hasObjects, 
+					this.normalWeighting);
+		} finally {
+			this.scene = loaded;
+		}
+	}
+	
+	/**
+	 * Reads the scene elements of a .byu file into the <code>Scene</code>.
+	 * @param	file The file to read the scene elements from
+	 * @throws	IOException In case there is a problem reading the file
+	 * @throws	NonConformantSceneFile In case the file doesn't respect 
+	 * 			the .byu standard
+	 */
+	private void readByu(File file) throws IOException, 
+										NonConformantSceneFile {
+		try (FileChannel fileChannel = new FileInputStream(file).getChannel();
+				ByuReader reader = new ByuReader(fileChannel)) {
+			//Big files have their objects parsed in parallel
+			if (fileChannel.size() >= this.parallelLoadThreshold) {
+				this.channel = fileChannel;
+			}
+			while (reader.nextLine()) {
+				if (reader.getTokenCount() == 2) {
+					loadObjects(reader);
+				} else if (reader.getTokenCount() == 3) {
+					loadCamera(reader);
+				}
+			}
+		} finally {
+			this.channel = null;
+		}
+	}
+	
+	/**
+	 * From the current line of the reader starts to load objects into memory
+	 * @param reader A reader positioned at the header line of an object
+	 * @throws IOException If the <code>ByuReader</code> stops working
 	 * @throws NonConformantSceneFile If there is a syntax error with the file
 	 */
-	private void loadObjects(String line) throws IOException, NonConformantSceneFile {
-		String[] args = line.split(" ");
+	private void loadObjects(ByuReader reader) throws IOException, 
+												NonConformantSceneFile {
 		//Reading an object
 		//Clean the previously loaded object
 		this.scene.cleanTriangles();
@@ -108,337 +172,468 @@ public class SceneController {
 		int numVertices;
 		int numTriangles;
 		try {
-			numVertices = Integer.valueOf(args[0]);
-			numTriangles = Integer.valueOf(args[1]);				
+			numVertices = reader.getInt(0);
+			numTriangles = reader.getInt(1);
 		} catch (NumberFormatException nfe) {
-			bfr.close();
-			throw new NonConformantSceneFile("Expected two "
-					+ "Integer values, "+"but found \""+args[0]+" "
-					+args[1]+"\"");
+			throw error(reader, "Expected two Integer values, "
+					+ "but found \""+reader.getLine()+"\"");
+		}
+		if (numVertices < 0 || numTriangles < 0) {
+			throw error(reader, "The number of vertices and triangles "
+					+ "can not be negative");
+		}
+		
+		if (3L * numVertices > MAX_ARRAY_LENGTH || 
+				3L * numTriangles > MAX_ARRAY_LENGTH) {
+			throw error(reader, "An object can have at most "
+					+(MAX_ARRAY_LENGTH / 3)+" vertices and triangles");
 		}
 		
-		//Read all vertices
-		Vertex[] vs = new Vertex[numVertices];
-		for (int i = 0; i < vs.length; i++) {
-			line = bfr.readLine();
-			if (line == null) {
-				bfr.close();
-				throw new NonConformantSceneFile("Expected "
-						+numVertices+" vertices, but found only "+i);
+		double[] positions = new double[3 * numVertices];
+		int[] indices = new int[3 * numTriangles];
+		if (this.channel != null) {
+			//Parse both sections in parallel straight from the mapped file
+			int lineNumber = reader.getLineNumber();
+			MappedByuLoader mapped = new MappedByuLoader(this.channel);
+			long end = mapped.load(reader.getOffset(), lineNumber, 
+					positions, indices);
+			reader.seek(end, lineNumber + numVertices + numTriangles);
+		} else {
+			//Read all vertices
+			for (int i = 0; i < numVertices; i++) {
+				if (!reader.nextLine()) {
+					throw error(reader, "Expected "
+							+numVertices+" vertices, but found only "+i);
+				}
+				readVertex(reader, positions, i);
 			}
-			String[] values = line.split(" ");
-			if (values.length < 3) {
-				bfr.close();
-				throw new NonConformantSceneFile("All vertices must "
-						+ "have at least 3 coordinates");
+			
+			//Read all triangles
+			for (int i = 0; i < numTriangles; i++) {
+				if (!reader.nextLine()) {
+					throw error(reader, "Expected "+
+							numTriangles+" triangles, but found only "+i);
+				}
+				readTriangle(reader, indices, i, numVertices);
 			}
-			double[] coords = new double[3];
+		}
+		
+		//Accumulate the normals of all triangles in a single pass
+		double[] normals = calculateVertexNormals(positions, indices, 
+				this.normalWeighting);
+		this.scene.setMesh(new Mesh(positions, normals, indices));
+	}
+	
+	/**
+	 * Parses the current line of the reader as a vertex.
+	 * @param reader	A reader positioned at a vertex line
+	 * @param positions	Where the coordinates are stored, three per vertex
+	 * @param i			The index of the vertex
+	 * @throws NonConformantSceneFile If the line is not a valid vertex
+	 */
+	static void readVertex(ByuReader reader, double[] positions, int i) 
+			throws NonConformantSceneFile {
+		if (reader.getTokenCount() < 3) {
+			throw error(reader, "All vertices must "
+					+ "have at least 3 coordinates");
+		}
+		try {
+			positions[3*i]		= reader.getDouble(0);
+			positions[3*i + 1]	= reader.getDouble(1);
+			positions[3*i + 2]	= reader.getDouble(2);
+		} catch (NumberFormatException e) {
+			throw error(reader, "Expected 3 "
+					+ "double-point precision values, but "
+					+ "found \""+reader.getLine()+"\"");
+		}
+	}
+	
+	/**
+	 * Parses the current line of the reader as a triangle.
+	 * @param reader		A reader positioned at a triangle line
+	 * @param indices		Where the zero-based vertex indices are stored, 
+	 * 						three per triangle
+	 * @param i				The index of the triangle
+	 * @param numVertices	The number of vertices of the object
+	 * @throws NonConformantSceneFile If the line is not a valid triangle
+	 */
+	static void readTriangle(ByuReader reader, int[] indices, int i, 
+			int numVertices) throws NonConformantSceneFile {
+		if (reader.getTokenCount() < 3) {
+			throw error(reader, "All triangles must "+
+					"have at least 3 vertices");
+		}
+		for (int k = 0; k < 3; k++) {
+			int index;
 			try {
-				coords[0] = Double.valueOf(values[0]);
-				coords[1] = Double.valueOf(values[1]);
-				coords[2] = Double.valueOf(values[2]);
-			} catch (Exception e) {
-				bfr.close();
-				throw new NonConformantSceneFile("Expected 3 "
-						+ "double-point precision values, but "
-						+ "found \""+line+"\"");
+				index = reader.getInt(k) - 1;
+			} catch (NumberFormatException e) {
+				throw error(reader, "Expected 3 Integer vertex "
+						+ "indices, but found \""+reader.getLine()+"\"");
 			}
-			vs[i] = new Vertex(coords);
+			if (index < 0 || index >= numVertices) {
+				throw error(reader, "Vertex index "+(index+1)
+						+" is out of range 1.."+numVertices);
+			}
+			indices[3*i + k] = index;
 		}
-		
-		//Form all triangles
-		for (int i = 0; i < numTriangles; i++) {
-			line = bfr.readLine();
-			if (line == null) {
-				bfr.close();
-				throw new NonConformantSceneFile("Expected "+
-						numTriangles+" triangles, but found only "+i);
+	}
+	
+	/**
+	 * Returns the size, in bytes, from which files have their objects 
+	 * memory-mapped and parsed in parallel.
+	 * @return the threshold in bytes
+	 */
+	public long getParallelLoadThreshold() {
+		return parallelLoadThreshold;
+	}
+	
+	/**
+	 * Sets the size, in bytes, from which files have their objects 
+	 * memory-mapped and parsed in parallel. Use <code>0</code> to always 
+	 * load in parallel and <code>Long.MAX_VALUE</code> to never do it.
+	 * @param parallelLoadThreshold the threshold in bytes
+	 */
+	public void setParallelLoadThreshold(long parallelLoadThreshold) {
+		this.parallelLoadThreshold = parallelLoadThreshold;
+	}
+	
+	/**
+	 * Returns whether fresh compiled sidecars are read in place of .byu files.
+	 * @return <code>true</code> if compiled scenes are used
+	 */
+	public boolean getUseCompiledScenes() {
+		return useCompiledScenes;
+	}
+	
+	/**
+	 * Sets whether fresh compiled sidecars are read in place of .byu files.
+	 * By default, they are.
+	 * @param useCompiledScenes <code>false</code> to always parse the .byu
+	 */
+	public void setUseCompiledScenes(boolean useCompiledScenes) {
+		this.useCompiledScenes = useCompiledScenes;
+	}
+	
+	/**
+	 * Calculates the normal of every vertex of an indexed mesh.<br />
+	 * Each <code>Triangle</code> adds its own normal to the three vertices
+	 * it references, so the cost is linear in the size of the mesh.
+	 * Vertices which are not referenced by any <code>Triangle</code> are 
+	 * left with a zero normal.
+	 * @param positions	The coordinates of the vertices, three per vertex
+	 * @param indices	The zero-based vertex indices, three per triangle
+	 * @param weighting	How the normal of each <code>Triangle</code> is 
+	 * 					weighted
+	 * @return	The normalized vertex normals, three coordinates per vertex
+	 */
+	public static double[] calculateVertexNormals(double[] positions, 
+			int[] indices, NormalWeighting weighting) {
+		double[] normals = new double[positions.length];
+		for (int t = 0; t < indices.length; t += 3) {
+			int a = 3 * indices[t];
+			int b = 3 * indices[t + 1];
+			int c = 3 * indices[t + 2];
+			double abx = positions[b] - positions[a];
+			double aby = positions[b + 1] - positions[a + 1];
+			double abz = positions[b + 2] - positions[a + 2];
+			double acx = positions[c] - positions[a];
+			double acy = positions[c + 1] - positions[a + 1];
+			double acz = positions[c + 2] - positions[a + 2];
+			// The cross product has the length of twice the triangle's area
+			double nx = (aby * acz) - (abz * acy);
+			double ny = (abz * acx) - (abx * acz);
+			double nz = (abx * acy) - (aby * acx);
+			double norm = Math.sqrt(nx*nx + ny*ny + nz*nz);
+			if (norm == 0.0) {
+				//Degenerate triangles have no normal to contribute
+				continue;
 			}
-			String[] values = line.split(" ");
-			if (values.length < 3) {
-				bfr.close();
-				throw new NonConformantSceneFile("All triangles must "+
-						"have at least 3 vertices");
+			if (weighting == NormalWeighting.AREA) {
+				addTo(normals, a, nx, ny, nz, 1.0);
+				addTo(normals, b, nx, ny, nz, 1.0);
+				addTo(normals, c, nx, ny, nz, 1.0);
+				continue;
 			}
-			Vertex[] triVertices = new Vertex[3];
-			int index = Integer.valueOf(values[0]) - 1;
-			triVertices[0] = vs[index]; 
-			index = Integer.valueOf(values[1]) - 1;
-			triVertices[1] = vs[index];
-			index = Integer.valueOf(values[2]) - 1;
-			triVertices[2] = vs[index];
-			Edge[] es = new Edge[3];
-			for (int k = 0; k < 3; k++) {
-				es[k] = new Edge(triVertices[k], triVertices[(k+1)%3]);
+			nx /= norm;
+			ny /= norm;
+			nz /= norm;
+			if (weighting == NormalWeighting.ANGLE) {
+				addTo(normals, a, nx, ny, nz, 
+						angle(positions, a, b, c));
+				addTo(normals, b, nx, ny, nz, 
+						angle(positions, b, c, a));
+				addTo(normals, c, nx, ny, nz, 
+						angle(positions, c, a, b));
+			} else {
+				addTo(normals, a, nx, ny, nz, 1.0);
+				addTo(normals, b, nx, ny, nz, 1.0);
+				addTo(normals, c, nx, ny, nz, 1.0);
 			}
-			this.scene.addTriangle(new Triangle(es[0], es[1], es[2]));
 		}
-		
-		//Operate over all triangles
-		
-		for (Vertex v : vs) {
-			Vector norm = new Vector(new double[] {0.0, 0.0, 0.0});
-			for (Triangle t : this.scene.getTriangles()) {
-				if (v.in(t)) {
-					norm = norm.add(t.getNormal());
-				}
+		for (int i = 0; i < normals.length; i += 3) {
+			double norm = Math.sqrt(normals[i]*normals[i] + 
+					normals[i + 1]*normals[i + 1] + 
+					normals[i + 2]*normals[i + 2]);
+			if (norm != 0.0) {
+				normals[i] /= norm;
+				normals[i + 1] /= norm;
+				normals[i + 2] /= norm;
 			}
-			norm = norm.normalize();
-			v.setNormal(norm);
 		}
+		return normals;
 	}
 	
 	/**
-	 * From a Line string starts to load the Camera and Light into memory
-	 * depending on what is in the file. The program can't read light and
-	 * camera separately. They need to be one after the other.
-	 * @param line A line from a BYU file
-	 * @throws IOException If <code>BufferedReader</code> stops working
+	 * Adds a weighted normal to the normal of the vertex at the given offset.
+	 */
+	private static void addTo(double[] normals, int offset, 
+			double nx, double ny, double nz, double weight) {
+		normals[offset]		+= weight * nx;
+		normals[offset + 1]	+= weight * ny;
+		normals[offset + 2]	+= weight * nz;
+	}
+	
+	/**
+	 * Returns the interior angle, in radians, at the vertex at offset 
+	 * <code>o</code> of the triangle it forms with the vertices at offsets 
+	 * <code>p</code> and <code>q</code>.
+	 */
+	private static double angle(double[] positions, int o, int p, int q) {
+		double ux = positions[p] - positions[o];
+		double uy = positions[p + 1] - positions[o + 1];
+		double uz = positions[p + 2] - positions[o + 2];
+		double vx = positions[q] - positions[o];
+		double vy = positions[q + 1] - positions[o + 1];
+		double vz = positions[q + 2] - positions[o + 2];
+		double lengths = Math.sqrt((ux*ux + uy*uy + uz*uz) * 
+				(vx*vx + vy*vy + vz*vz));
+		if (lengths == 0.0) {
+			return 0.0;
+		}
+		double cos = (ux*vx + uy*vy + uz*vz) / lengths;
+		return Math.acos(Math.max(-1.0, Math.min(1.0, cos)));
+	}
+	
+	/**
+	 * Returns how the vertex normals are weighted when objects are loaded.
+	 * @return the current <code>NormalWeighting</code>
+	 */
+	public NormalWeighting getNormalWeighting() {
+		return normalWeighting;
+	}
+	
+	/**
+	 * Sets how the vertex normals are weighted when objects are loaded.
+	 * By default, every adjacent <code>Triangle</code> weighs the same.
+	 * @param normalWeighting the new <code>NormalWeighting</code>
+	 */
+	public void setNormalWeighting(NormalWeighting normalWeighting) {
+		this.normalWeighting = normalWeighting;
+	}
+	
+	/**
+	 * From the current line of the reader starts to load the Camera and 
+	 * Light into memory depending on what is in the file. The program can't 
+	 * read light and camera separately. They need to be one after the other.
+	 * @param reader A reader positioned at the first line of a camera
+	 * @throws IOException If the <code>ByuReader</code> stops working
 	 * @throws NonConformantSceneFile If there is a syntax error with the file
 	 */
-	private void loadCamera(String line) throws IOException, NonConformantSceneFile {
-		String[] args = line.split(" ");
+	private void loadCamera(ByuReader reader) throws IOException, 
+												NonConformantSceneFile {
 		//Reading camera
-		double[] ds = new double[3];
-		try {
-			ds[0] = Double.valueOf(args[0]);
-			ds[1] = Double.valueOf(args[1]);
-			ds[2] = Double.valueOf(args[2]);
-		} catch (Exception e) {
-			bfr.close();
-			throw new NonConformantSceneFile("Expected 3 double-point "
-					+ "precision values, but found \""+line+"\"");
-		}
-		Vertex C = new Vertex(ds);
+		Vertex C = new Vertex(readDoubles(reader, "Expected 3 double-point "
+				+ "precision values, but found \""));
 		
-		line = bfr.readLine();
-		if (line == null) {
-			bfr.close();
-			throw new NonConformantSceneFile("Expected to find more "
-					+ "camera parameters, but found only 1");
-		}
-		args = line.split(" ");
-		double[] ds2 = new double[3];
-		try {
-			ds2[0] = Double.valueOf(args[0]);
-			ds2[1] = Double.valueOf(args[1]);
-			ds2[2] = Double.valueOf(args[2]);
-		} catch (Exception e) {
-			bfr.close();
-			throw new NonConformantSceneFile("Expected 3 double-point "
-					+ "precision values, but found \""+line+"\"");
-		}
-		Vector N = new Vector(ds2);
+		nextCameraLine(reader, 1);
+		Vector N = new Vector(readDoubles(reader, "Expected 3 double-point "
+				+ "precision values, but found \""));
 		
-		line = bfr.readLine();
-		if (line == null) {
-			bfr.close();
-			throw new NonConformantSceneFile("Expected to find more "
-					+ "camera parameters, but found only 2");
-		}
-		args = line.split(" ");
+		nextCameraLine(reader, 2);
+		Vector V = new Vector(readDoubles(reader, "Expected 3 double-point "
+				+ "precision values, but found \""));
 		
-		double[] ds3 = new double[3];
-		try {
-			ds3[0] = Double.valueOf(args[0]);
-			ds3[1] = Double.valueOf(args[1]);
-			ds3[2] = Double.valueOf(args[2]);
-		} catch (Exception e) {
-			bfr.close();
-			throw new NonConformantSceneFile("Expected 3 double-point "
-					+ "precision values, but found \""+line+"\"");
-		}
-		Vector V = new Vector(ds3);
+		nextCameraLine(reader, 3);
+		double d = readDouble(reader);
 		
-		line = bfr.readLine();
-		if (line == null) {
-			bfr.close();
-			throw new NonConformantSceneFile("Expected to find more "
-					+ "camera parameters, but found only 3");
-		}
-		double d;
-		try {
-			d = Double.valueOf(line);
-		} catch (Exception e) {
-			bfr.close();
-			throw new NonConformantSceneFile("Expected a double-point "
-					+ "precision value, but found \""+line+"\"");
-		}
+		nextCameraLine(reader, 4);
+		double hx = readDouble(reader);
 		
-		line = bfr.readLine();
-		if (line == null) {
-			bfr.close();
-			throw new NonConformantSceneFile("Expected to find more "
-					+ "camera parameters, but found only 4");
-		}
-		double hx;
-		try {
-			hx = Double.valueOf(line);
-		} catch (Exception e) {
-			bfr.close();
-			throw new NonConformantSceneFile("Expected a double-point "
-					+ "precision value, but found \""+line+"\"");
-		}
+		nextCameraLine(reader, 5);
+		double hy = readDouble(reader);
 		
-		line = bfr.readLine();
-		if (line == null) {
-			bfr.close();
-			throw new NonConformantSceneFile("Expected to find more "
-					+ "camera parameters, but found only 5");
-		}
-		double hy;
-		try {
-			hy = Double.valueOf(line);
-		} catch (Exception e) {
-			bfr.close();
-			throw new NonConformantSceneFile("Expected a double-point "
-					+ "precision value, but found \""+line+"\"");
-		}
 		this.scene.setCamera(new Camera(C, N, V, d, hx, hy));
 		System.out.println("Camera = "+scene.getCamera().toString());
 		
-		line = bfr.readLine();
-		if (line == null) {
+		if (!reader.nextLine()) {
 			//If there is nothing else
 			return;
 		}
 		//But if there is and
-		args = line.split(" ");
-		if (args.length == 3) {
+		if (reader.getTokenCount() == 3) {
 			//Load Light
 			//In the current line, we find the environmental light color
-			Color iAmb;
-			int r,g,b;
-			try {
-				r = Integer.parseInt(args[0]);
-				g = Integer.parseInt(args[1]);
-				b = Integer.parseInt(args[2]);
-			} catch (NumberFormatException e) {
-				throw new NonConformantSceneFile("Expected three integers,"
-						+ " but found \""+line+"\"");
-			}
-			iAmb = new Color(r, g, b);
+			Color iAmb = readColor(reader);
 			
 			//Now get iL, the light color
-			line = bfr.readLine();
-			if (line == null) {
-				throw new NonConformantSceneFile("Expected Light Color"
+			if (!reader.nextLine()) {
+				throw error(reader, "Expected Light Color"
 						+ " specification, but found nothing");
 			}
-			args = line.split(" ");
-			if (args.length != 3) {
-				throw new NonConformantSceneFile("Expected Light Color"
-						+ " specification, but found \""+line+"\"");
+			if (reader.getTokenCount() != 3) {
+				throw error(reader, "Expected Light Color"
+						+ " specification, but found \""
+						+reader.getLine()+"\"");
 			}
-			Color iL;
-			try {
-				r = Integer.parseInt(args[0]);
-				g = Integer.parseInt(args[1]);
-				b = Integer.parseInt(args[2]);
-			} catch (NumberFormatException e) {
-				throw new NonConformantSceneFile("Expected three integers,"
-						+ " but found \""+line+"\"");
-			}
-			iL = new Color(r, g, b);
+			Color iL = readColor(reader);
 			
 			//Now get Ka, Ks, eta in a single line
-			line = bfr.readLine();
-			if (line == null) {
-				throw new NonConformantSceneFile("Expected the "
+			if (!reader.nextLine()) {
+				throw error(reader, "Expected the "
 						+ "environmental reflection coefficient, "
 						+ "specular reflection coefficient and the "
 						+ "specular size"
 						+ " specifications, but found nothing");
 			}
-			args = line.split(" ");
-			double ka, ks, eta;
-			try {
-				ka = Double.valueOf(args[0]);
-				ks = Double.valueOf(args[1]);
-				eta = Double.valueOf(args[2]);
-			} catch (Exception e) {
-				throw new NonConformantSceneFile("Expected three double-point "
-						+ "precision values for Ka, Ks and eta,"
-						+ " but found \""+line+"\"");
-			}
+			double[] kaKsEta = readDoubles(reader, "Expected three "
+					+ "double-point precision values for Ka, Ks and eta,"
+					+ " but found \"");
 			
 			//Now get Kd
-			line = bfr.readLine();
-			if (line == null) {
-				throw new NonConformantSceneFile("Expected Diffuse "
+			if (!reader.nextLine()) {
+				throw error(reader, "Expected Diffuse "
 						+ "reflection coefficient"
 						+ " specification, but found nothing");
 			}
-			args = line.split(" ");
-			double[] dds;
-			try {
-				dds = new double[] {
-					Double.valueOf(args[0]),
-					Double.valueOf(args[1]),
-					Double.valueOf(args[2])
-				};
-			} catch (Exception e) {
-				throw new NonConformantSceneFile("Expected three double-point "
-						+ "precision values for Diffuse reflection coefficient"
-						+ " vector,"
-						+ " but found \""+line+"\"");
-			}
-			Vector kD = new Vector(dds);
+			Vector kD = new Vector(readDoubles(reader, "Expected three "
+					+ "double-point precision values for Diffuse "
+					+ "reflection coefficient vector, but found \""));
 			
 			//Now get Od
-			line = bfr.readLine();
-			if (line == null) {
-				throw new NonConformantSceneFile("Expected surface "
+			if (!reader.nextLine()) {
+				throw error(reader, "Expected surface "
 						+ "diffuse color"
 						+ " specification, but found nothing");
 			}
-			args = line.split(" ");
-			double[] ods;
-			try {
-				ods = new double[] {
-					Double.valueOf(args[0]),
-					Double.valueOf(args[1]),
-					Double.valueOf(args[2])
-				};
-			} catch (Exception e) {
-				throw new NonConformantSceneFile("Expected three double-point "
-						+ "precision values for surface diffuse color"
-						+ " vector,"
-						+ " but found \""+line+"\"");
-			}
-			Vector oD = new Vector(ods);
+			Vector oD = new Vector(readDoubles(reader, "Expected three "
+					+ "double-point precision values for surface diffuse "
+					+ "color vector, but found \""));
 			
 			//Now get Pl
-			line = bfr.readLine();
-			if (line == null) {
-				throw new NonConformantSceneFile("Expected surface "
+			if (!reader.nextLine()) {
+				throw error(reader, "Expected surface "
 						+ "diffuse color"
 						+ " specification, but found nothing");
 			}
-			args = line.split(" ");
-			double[] pls;
-			try {
-				pls = new double[] {
-					Double.valueOf(args[0]),
-					Double.valueOf(args[1]),
-					Double.valueOf(args[2])
-				};
-			} catch (Exception e) {
-				throw new NonConformantSceneFile("Expected three double-point "
-						+ "precision values for Origin of Light"
-						+ " vertex,"
-						+ " but found \""+line+"\"");
-			}
-			Vertex pl = new Vertex(pls);
+			Vertex pl = new Vertex(readDoubles(reader, "Expected three "
+					+ "double-point precision values for Origin of Light"
+					+ " vertex, but found \""));
 			
-			this.scene.setLight(new Light(iAmb, iL, ka, ks, eta, kD, oD, pl));
+			this.scene.setLight(new Light(iAmb, iL, kaKsEta[0], kaKsEta[1], 
+					kaKsEta[2], kD, oD, pl));
 			System.out.println("Light = "+this.scene.getLight().toString());
 			
-		} else if (args.length == 2) {
-			loadObjects(line);
+		} else if (reader.getTokenCount() == 2) {
+			loadObjects(reader);
 		}
 	}
 	
+	/**
+	 * Advances the reader to the next camera parameter.
+	 * @param reader	The reader
+	 * @param found		How many camera parameters were already read
+	 * @throws IOException If the <code>ByuReader</code> stops working
+	 * @throws NonConformantSceneFile If there are no more lines
+	 */
+	private void nextCameraLine(ByuReader reader, int found) 
+			throws IOException, NonConformantSceneFile {
+		if (!reader.nextLine()) {
+			throw error(reader, "Expected to find more "
+					+ "camera parameters, but found only "+found);
+		}
+	}
+	
+	/**
+	 * Parses the first three values of the current line.
+	 * @param reader	The reader
+	 * @param message	The beginning of the error message, to which the 
+	 * 					offending line is appended
+	 * @return the three values
+	 * @throws NonConformantSceneFile If the values are not valid doubles
+	 */
+	private double[] readDoubles(ByuReader reader, String message) 
+			throws NonConformantSceneFile {
+		try {
+			return new double[] {
+				reader.getDouble(0),
+				reader.getDouble(1),
+				reader.getDouble(2)
+			};
+		} catch (NumberFormatException e) {
+			throw error(reader, message+reader.getLine()+"\"");
+		}
+	}
+	
+	/**
+	 * Parses the current line as a single value.
+	 * @param reader	The reader
+	 * @return the value in the line
+	 * @throws NonConformantSceneFile If the line is not a single double
+	 */
+	private double readDouble(ByuReader reader) 
+			throws NonConformantSceneFile {
+		try {
+			if (reader.getTokenCount() != 1) {
+				throw new NumberFormatException();
+			}
+			return reader.getDouble(0);
+		} catch (NumberFormatException e) {
+			throw error(reader, "Expected a double-point "
+					+ "precision value, but found \""+reader.getLine()+"\"");
+		}
+	}
+	
+	/**
+	 * Parses the current line as three integer color components.
+	 * @param reader	The reader
+	 * @return the <code>Color</code> in the line
+	 * @throws NonConformantSceneFile If the line is not three integers
+	 */
+	private Color readColor(ByuReader reader) throws NonConformantSceneFile {
+		try {
+			return new Color(reader.getInt(0), reader.getInt(1), 
+					reader.getInt(2));
+		} catch (NumberFormatException e) {
+			throw error(reader, "Expected three integers,"
+					+ " but found \""+reader.getLine()+"\"");
+		} catch (IllegalArgumentException e) {
+			throw error(reader, "Color components must be between "
+					+ "0 and 255, but found \""+reader.getLine()+"\"");
+		}
+	}
+	
+	/**
+	 * Creates the exception for a syntax error at the current line.
+	 * @param reader	The reader
+	 * @param message	The description of the error
+	 * @return the exception to be thrown
+	 */
+	static NonConformantSceneFile error(ByuReader reader, 
+			String message) {
+		return error(reader.getLineNumber(), message);
+	}
+	
+	/**
+	 * Creates the exception for a syntax error at the given line.
+	 * @param lineNumber	The number of the line, starting from 1
+	 * @param message		The description of the error
+	 * @return the exception to be thrown
+	 */
+	static NonConformantSceneFile error(int lineNumber, String message) {
+		return new NonConformantSceneFile("Line "+lineNumber+": "+message);
+	}
+	
 	/**
 	 * Calculates the distance between the <code>Triangle</code>'s 
 	 * centroid and the camera's focus.
@@ -466,18 +661,38 @@ public class SceneController {
 	}
 	
 	/**
-	 * This function is only used for testing.
+	 * Measures how long a .byu file takes to load, from the first byte to 
+	 * a <code>Scene</code> ready to render. The file is parsed by 
+	 * {@link ByuReader} on a single thread, without its compiled sidecar, 
+	 * a few times, so the later loads show the speed once the JIT has 
+	 * warmed up.
+	 * @param args	the .byu file, and optionally how many times to load it
 	 */
 	public static void main(String[] args) {
+		if (args.length == 0) {
+			System.err.println("Usage: SceneController file.byu [loads]");
+			System.exit(1);
+		}
+		File file = new File(args[0]);
+		int loads = args.length > 1 ? Integer.parseInt(args[1]) : 3;
 		SceneController sc = SceneController.getInstance();
+		sc.setParallelLoadThreshold(Long.MAX_VALUE);
+		sc.setUseCompiledScenes(false);
 		try {
-			sc.loadScene(new File("samples/camera4.byu")); //Make sure you have one
-			System.out.println(sc.getScene().toString());
-			System.out.println(sc.getScene().getTriangles().size());
-			System.out.println(sc.getScene().getCamera().toString());
+			for (int i = 0; i < loads; i++) {
+				long start = System.nanoTime();
+				sc.loadScene(file);
+				long millis = (System.nanoTime() - start) / 1000000;
+				Mesh mesh = sc.getScene().getMesh();
+				System.out.println(file+": "+mesh.getNumVertices()
+						+" vertices, "+mesh.getNumTriangles()
+						+" triangles in "+millis+" ms ("
+						+(file.length() / 1024 / Math.max(1, millis))
+						+" MB/s)");
+			}
 		} catch (IOException | NonConformantSceneFile e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
+			System.err.println(file+": "+e.getMessage());
+			System.exit(1);
 		}
 	}
 
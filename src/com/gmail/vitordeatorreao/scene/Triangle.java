@@ -9,6 +9,10 @@ import com.gmail.vitordeatorreao.math.Vertex;
  * Every visual object in this application is going to be modeled using
  * triangle faces.
  * <p>
+ * A <code>Triangle</code> is either standalone, defined by its edges, or a 
+ * view of a triangle stored in a {@link Mesh}. The vertices, edges, normal 
+ * and centroid of a view are only created when they are first asked for.
+ * <p>
  * This code is available through the 
  * <a href="http://www.gnu.org/licenses/gpl-2.0.html">GNU GPL v2.0</a> license.
  * <br>
@@ -26,6 +30,8 @@ public class Triangle {
 	private Vector normal;
 	private Vertex[] vertices;
 	private Vertex centroid;
+	private Mesh mesh;
+	private int index;
 	
 	/**
 	 * Constructor of <code>Triangle</code> class. A Triangle object is defined
@@ -64,6 +70,35 @@ public class Triangle {
 		this.calculateCentroid();
 	}
 	
+	/**
+	 * Constructor of a <code>Triangle</code> which is a view of a triangle 
+	 * in a <code>Mesh</code>.
+	 * @param mesh	The <code>Mesh</code> where the triangle is stored
+	 * @param index	The index of the triangle in the <code>Mesh</code>
+	 */
+	Triangle(Mesh mesh, int index) {
+		this.mesh = mesh;
+		this.index = index;
+	}
+	
+	/**
+	 * Creates the vertices and edges of a view from its <code>Mesh</code>.
+	 */
+	private void materialize() {
+		if (this.edges != null) {
+			return;
+		}
+		Vertex[] vs = new Vertex[3];
+		for (int k = 0; k < 3; k++) {
+			vs[k] = this.mesh.getVertex(this.mesh.getIndex(this.index, k));
+		}
+		this.edges = new Edge[3];
+		for (int k = 0; k < 3; k++) {
+			this.edges[k] = new Edge(vs[k], vs[(k+1)%3]);
+		}
+		this.setVertices();
+	}
+	
 	/**
 	 * Calculates this <code>Triangle</code>'s centriod.
 	 */
@@ -106,6 +141,7 @@ public class Triangle {
 	 * @return the edges of the <code>Triangle</code>
 	 */
 	public Edge[] getEdges() {
+		materialize();
 		return edges;
 	}
 
@@ -123,6 +159,10 @@ public class Triangle {
 	 * @return The normal of this <code>Triangle</code>
 	 */
 	public Vector getNormal() {
+		if (normal == null) {
+			materialize();
+			calculateNormal();
+		}
 		return normal;
 	}
 
@@ -131,6 +171,7 @@ public class Triangle {
 	 * @return The three vertices of this <code>Triangle</code>
 	 */
 	public Vertex[] getVertices() {
+		materialize();
 		return vertices;
 	}
 	
@@ -141,6 +182,7 @@ public class Triangle {
 	 * @return Vertex The <code>Vertex</code> at the specified index
 	 */
 	public Vertex getVertex(int index) {
+		materialize();
 		return this.vertices[index];
 	}
 	
@@ -149,6 +191,10 @@ public class Triangle {
 	 * @return The centroid
 	 */
 	public Vertex getCentroid() {
+		if (centroid == null) {
+			materialize();
+			calculateCentroid();
+		}
 		return centroid;
 	}
 
@@ -159,7 +205,7 @@ public class Triangle {
 	 */
 	public String toString() {
 		String result = "";
-		for(Edge e : this.edges) {
+		for(Edge e : this.getEdges()) {
 			result += e.toString() + "\t";
 		}
 		return result;
@@ -0,0 +1,35 @@
+package com.gmail.vitordeatorreao.screen;
+
+import com.gmail.vitordeatorreao.scene.Mesh;
+
+/**
+ * This class implements Phong shading with the
+ * <a href="http://en.wikipedia.org/wiki/Blinn%E2%80%93Phong_shading_model">
+ * Blinn-Phong</a> reflection model: the specular term uses the angle
+ * between the normal and the vector halfway between the light and the eye,
+ * instead of the angle between the eye and the reflected light. The same
+ * exponent gives wider highlights than {@link PhongShading}.
+ * <p>
+ * This code is available through the
+ * <a href="http://www.gnu.org/licenses/gpl-2.0.html">GNU GPL v2.0</a> license.
+ * <br>
+ * You can acess the full project at
+ * <a href="https://github.com/vitordeatorreao/bcgproject1">GitHub</a>.
+ * @author	<a href="https://github.com/vitordeatorreao/">V&iacute;tor de
+ * 			Albuquerque Torre&atilde;o</a>
+ * @version 1.0
+ * @since 1.0
+ */
+public class BlinnPhongShading implements ShadingModel {
+
+	@Override
+	public Shader createShader(Mesh mesh, ShadingContext context) {
+		return new PhongShading.InterpolatedNormalShader(mesh, context, true);
+	}
+
+	@Override
+	public String toString() {
+		return "Blinn-Phong";
+	}
+
+}
@@ -0,0 +1,55 @@
+package com.gmail.vitordeatorreao.screen;
+
+import com.gmail.vitordeatorreao.scene.Mesh;
+
+/**
+ * This class keeps the colors a {@link ShadingModel} computed once per
+ * vertex or per triangle, for as long as the <code>Mesh</code> and the
+ * {@link ShadingContext} stay the same.
+ * <p>
+ * The colors are filled lazily by the threads shading the frame, so only
+ * the vertices or triangles which are seen are ever lit. A color of
+ * <code>0</code> means it was not computed yet; the colors stored are
+ * opaque, <code>0xFFRRGGBB</code>, so they are never <code>0</code>. Two
+ * threads may compute the same color at the same time, but they store the
+ * same value.
+ * <p>
+ * This code is available through the
+ * <a href="http://www.gnu.org/licenses/gpl-2.0.html">GNU GPL v2.0</a> license.
+ * <br>
+ * You can acess the full project at
+ * <a href="https://github.com/vitordeatorreao/bcgproject1">GitHub</a>.
+ * @author	<a href="https://github.com/vitordeatorreao/">V&iacute;tor de
+ * 			Albuquerque Torre&atilde;o</a>
+ * @version 1.0
+ * @since 1.0
+ */
+class ColorCache {
+
+	private Mesh mesh;
+	private int version;
+	private ShadingContext context;
+	private int[] colors = new int[0];
+
+	/**
+	 * Returns the colors computed so far for a frame, or new empty ones if
+	 * anything they depend on changed.
+	 * @param mesh		The <code>Mesh</code> with the triangles
+	 * @param context	The <code>Light</code> and <code>Camera</code> of the
+	 * 					frame
+	 * @param size		How many colors are needed
+	 * @return the colors
+	 */
+	synchronized int[] get(Mesh mesh, ShadingContext context, int size) {
+		if (mesh != this.mesh || mesh.getVersion() != version ||
+				!context.equals(this.context) ||
+				colors.length != size) {
+			this.mesh = mesh;
+			this.version = mesh.getVersion();
+			this.context = context;
+			this.colors = new int[size];
+		}
+		return colors;
+	}
+
+}
@@ -0,0 +1,81 @@
+package com.gmail.vitordeatorreao.screen;
+
+import com.gmail.vitordeatorreao.math.Vec3;
+import com.gmail.vitordeatorreao.scene.Mesh;
+
+/**
+ * This class implements
+ * <a href="http://en.wikipedia.org/wiki/Shading#Flat_shading">flat
+ * shading</a>: every triangle is lit once per frame, at its centroid and
+ * with the normal of its plane, as given by 
+ * {@link com.gmail.vitordeatorreao.scene.Triangle#getNormal()}, and painted
+ * with a single color. It is the
+ * cheapest {@link ShadingModel}, meant for previews of big meshes.
+ * <p>
+ * This code is available through the
+ * <a href="http://www.gnu.org/licenses/gpl-2.0.html">GNU GPL v2.0</a> license.
+ * <br>
+ * You can acess the full project at
+ * <a href="https://github.com/vitordeatorreao/bcgproject1">GitHub</a>.
+ * @author	<a href="https://github.com/vitordeatorreao/">V&iacute;tor de
+ * 			Albuquerque Torre&atilde;o</a>
+ * @version 1.0
+ * @since 1.0
+ */
+public class FlatShading implements ShadingModel {
+
+	private final ColorCache cache = new ColorCache();
+
+	@Override
+	public Shader createShader(Mesh mesh, ShadingContext context) {
+		return new TriangleColorShader(mesh, context,
+				cache.get(mesh, context, mesh.getNumTriangles()));
+	}
+
+	@Override
+	public String toString() {
+		return "Flat";
+	}
+
+	/**
+	 * Paints every triangle with one color, lighting it when it is first
+	 * needed.
+	 */
+	private static class TriangleColorShader implements Shader {
+
+		private final Mesh mesh;
+		private final Illuminator illuminator;
+		private final int[] colors;
+		private final Vec3 a = new Vec3();
+		private final Vec3 b = new Vec3();
+		private final Vec3 c = new Vec3();
+		private final Vec3 centroid = new Vec3();
+		private final Vec3 normal = new Vec3();
+
+		TriangleColorShader(Mesh mesh, ShadingContext context,
+				int[] colors) {
+			this.mesh = mesh;
+			this.illuminator = new Illuminator(context);
+			this.colors = colors;
+		}
+
+		@Override
+		public int shade(int triangle, double alpha, double beta,
+				double gama, Vec3 point) {
+			int rgb = colors[triangle];
+			if (rgb == 0) {
+				//The centroid and normal of Triangle, without a view of it
+				double[] positions = mesh.getPositions();
+				a.set(positions, 3 * mesh.getIndex(triangle, 0));
+				b.set(positions, 3 * mesh.getIndex(triangle, 1));
+				c.set(positions, 3 * mesh.getIndex(triangle, 2));
+				centroid.set(a).add(b).add(c).mult(1.0 / 3.0);
+				normal.cross(b.sub(a), c.sub(a));
+				rgb = illuminator.illuminate(centroid, normal, false);
+				colors[triangle] = rgb;
+			}
+			return rgb;
+		}
+	}
+
+}
@@ -0,0 +1,121 @@
+package com.gmail.vitordeatorreao.screen;
+
+import com.gmail.vitordeatorreao.math.Vec3;
+import com.gmail.vitordeatorreao.scene.Camera;
+import com.gmail.vitordeatorreao.scene.Mesh;
+
+/**
+ * This class finds the points of the triangles of a <code>Mesh</code> seen
+ * through the pixels, and computes their color with a
+ * {@link ShadingModel}. A point is given by its triangle and its
+ * barycentric coordinates in it.
+ * <p>
+ * An instance keeps its own scratch vectors, so every thread needs its
+ * own.
+ * <p>
+ * This code is available through the
+ * <a href="http://www.gnu.org/licenses/gpl-2.0.html">GNU GPL v2.0</a> license.
+ * <br>
+ * You can acess the full project at
+ * <a href="https://github.com/vitordeatorreao/bcgproject1">GitHub</a>.
+ * @author	<a href="https://github.com/vitordeatorreao/">V&iacute;tor de
+ * 			Albuquerque Torre&atilde;o</a>
+ * @version 1.0
+ * @since 1.0
+ */
+class FragmentShader {
+
+	/**
+	 * The color of everything when there is no light.
+	 */
+	private static final int BLACK = 0xFF000000;
+
+	private final Mesh mesh;
+	private final ShadingModel.Shader shader;
+
+	private int triangle;
+	private final Vec3 point = new Vec3();
+	private final Vec3 toEye = new Vec3();
+	private final Vec3 focus = new Vec3();
+
+	/**
+	 * Constructor.
+	 * @param mesh		The <code>Mesh</code> with the triangles
+	 * @param camera	The <code>Camera</code> looking at it
+	 * @param context	The <code>Light</code> and <code>Camera</code> of the
+	 * 					frame, or <code>null</code> to paint everything
+	 * 					black
+	 * @param model		How to compute the colors
+	 */
+	FragmentShader(Mesh mesh, Camera camera, ShadingContext context,
+			ShadingModel model) {
+		this.mesh = mesh;
+		this.shader = context == null ? null :
+				model.createShader(mesh, context);
+		focus.set(camera.getFocus());
+	}
+
+	/**
+	 * Finds a point of a triangle and returns its distance to the focus of
+	 * the camera. The point is the one shaded by the next call to
+	 * {@link #shade(double, double, double)}.
+	 * @param triangle	The triangle
+	 * @param alpha		The first barycentric coordinate of the point
+	 * @param beta		The second barycentric coordinate of the point
+	 * @param gama		The third barycentric coordinate of the point
+	 * @return the distance to the focus
+	 */
+	double locate(int triangle, double alpha, double beta, double gama) {
+		double[] positions = mesh.getPositions();
+		int a = 3 * mesh.getIndex(triangle, 0);
+		int b = 3 * mesh.getIndex(triangle, 1);
+		int c = 3 * mesh.getIndex(triangle, 2);
+		place(triangle,
+				alpha*positions[a] + beta*positions[b] + gama*positions[c],
+				alpha*positions[a + 1] + beta*positions[b + 1] +
+					gama*positions[c + 1],
+				alpha*positions[a + 2] + beta*positions[b + 2] +
+					gama*positions[c + 2]);
+		return toEye.set(focus).sub(point).getNorm();
+	}
+
+	/**
+	 * Sets the point shaded by the next call to
+	 * {@link #shade(double, double, double)}, when its position is already
+	 * known.
+	 * @param triangle	The triangle of the point
+	 * @param x			The x coordinate of the point
+	 * @param y			The y coordinate of the point
+	 * @param z			The z coordinate of the point
+	 */
+	void place(int triangle, double x, double y, double z) {
+		this.triangle = triangle;
+		point.set(x, y, z);
+	}
+
+	/**
+	 * Returns the point found by the last call to
+	 * {@link #locate(int, double, double, double)}.
+	 * @return the point, in the world base
+	 */
+	Vec3 getPoint() {
+		return point;
+	}
+
+	/**
+	 * Computes the color of the point found by the last call to
+	 * {@link #locate(int, double, double, double)} or
+	 * {@link #place(int, double, double, double)}.
+	 * @param alpha		The first barycentric coordinate of the point
+	 * @param beta		The second barycentric coordinate of the point
+	 * @param gama		The third barycentric coordinate of the point
+	 * @return the color of the point, packed as <code>0xFFRRGGBB</code>
+	 */
+	int shade(double alpha, double beta, double gama) {
+		if (shader == null) {
+			return BLACK;
+		}
+		return shader.shade(triangle, alpha, beta, gama, point);
+	}
+
+}
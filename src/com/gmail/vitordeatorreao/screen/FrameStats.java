@@ -0,0 +1,153 @@
+package com.gmail.vitordeatorreao.screen;
+
+/**
+ * This class holds the counters of one frame rendered by a
+ * {@link Renderer}.
+ * <p>
+ * The counters are written while the frame is rendered, and are only
+ * meant to be read on the thread which called <code>render</code>, once
+ * it returned. Only {@link #addFragments(long, long)} is synchronized,
+ * since the tiles add their fragments at the same time. They are all
+ * done when <code>render</code> returns.
+ * <p>
+ * This code is available through the
+ * <a href="http://www.gnu.org/licenses/gpl-2.0.html">GNU GPL v2.0</a> license.
+ * <br>
+ * You can acess the full project at
+ * <a href="https://github.com/vitordeatorreao/bcgproject1">GitHub</a>.
+ * @author	<a href="https://github.com/vitordeatorreao/">V&iacute;tor de
+ * 			Albuquerque Torre&atilde;o</a>
+ * @version 1.0
+ * @since 1.0
+ */
+public class FrameStats {
+
+	int triangles;
+	int backFacing;
+	int outsideFrustum;
+	int clipped;
+	long shaded;
+	long rejected;
+	boolean reshaded;
+
+	/**
+	 * Sets all counters back to zero.
+	 */
+	void reset() {
+		triangles = 0;
+		backFacing = 0;
+		outsideFrustum = 0;
+		clipped = 0;
+		reshaded = false;
+		resetFragments();
+	}
+
+	/**
+	 * Sets the counters of fragments back to zero.
+	 */
+	void resetFragments() {
+		shaded = 0;
+		rejected = 0;
+	}
+
+	/**
+	 * Adds the fragments of one tile to the counters. Tiles are rendered
+	 * at the same time, so this is synchronized.
+	 */
+	synchronized void addFragments(long shaded, long rejected) {
+		this.shaded += shaded;
+		this.rejected += rejected;
+	}
+
+	/**
+	 * Returns the number of triangles in the frame, before culling.
+	 * @return the number of triangles
+	 */
+	public int getTriangles() {
+		return triangles;
+	}
+
+	/**
+	 * Returns the number of triangles culled for facing away from the
+	 * <code>Camera</code>.
+	 * @return the number of back-facing triangles
+	 */
+	public int getBackFacing() {
+		return backFacing;
+	}
+
+	/**
+	 * Returns the number of triangles culled for being entirely outside the
+	 * view frustum, including those behind the <code>Camera</code>.
+	 * @return the number of triangles outside the frustum
+	 */
+	public int getOutsideFrustum() {
+		return outsideFrustum;
+	}
+
+	/**
+	 * Returns the number of triangles culled, for any reason.
+	 * @return the number of culled triangles
+	 */
+	public int getCulled() {
+		return backFacing + outsideFrustum;
+	}
+
+	/**
+	 * Returns the number of triangles which had to be clipped by the near
+	 * plane or the guard band before being rasterized.
+	 * @return the number of clipped triangles
+	 */
+	public int getClipped() {
+		return clipped;
+	}
+
+	/**
+	 * Returns the number of triangles sent to the rasterizer, clipped or
+	 * not.
+	 * @return the number of rasterized triangles
+	 */
+	public int getRasterized() {
+		return triangles - getCulled();
+	}
+
+	/**
+	 * Returns the number of fragments which passed the depth test and were
+	 * shaded.
+	 * @return the number of shaded fragments
+	 */
+	public long getShaded() {
+		return shaded;
+	}
+
+	/**
+	 * Returns the number of fragments rejected by the depth test, before 
+	 * any lighting was computed for them.
+	 * @return the number of rejected fragments
+	 */
+	public long getRejected() {
+		return rejected;
+	}
+
+	/**
+	 * Tells if the frame was only shaded again, over what was seen in the
+	 * frame before, because only the <code>Light</code> changed. The 
+	 * counters of triangles are then the ones of that frame.
+	 * @return <code>true</code> if the frame was only shaded again
+	 */
+	public boolean isReshaded() {
+		return reshaded;
+	}
+
+	@Override
+	public String toString() {
+		return "triangles = " + triangles
+				+ ", back-facing = " + backFacing
+				+ ", outside frustum = " + outsideFrustum
+				+ ", clipped = " + clipped
+				+ ", shaded = " + shaded
+				+ ", rejected = " + rejected
+				+ (reshaded ? ", reshaded" : "");
+	}
+
+}
@@ -0,0 +1,160 @@
+package com.gmail.vitordeatorreao.screen;
+
+import java.util.Arrays;
+
+import com.gmail.vitordeatorreao.math.Vec3;
+
+/**
+ * This class holds the result of the visibility pass of the deferred
+ * {@link Renderer}: for every pixel, the depth, the triangle seen through
+ * it, and the barycentric coordinates and the position of the point seen
+ * in that triangle.
+ * Nothing is lit until every triangle went through it, so every pixel is
+ * shaded once, however many triangles cover it. As long as the camera and
+ * the triangles stay the same, it can also be shaded again with another
+ * light without rasterizing anything.
+ * <p>
+ * Like the {@link ZBuffer}, the values are kept in flat arrays in
+ * row-major order, and a <code>GBuffer</code> is meant to be reused between
+ * frames of the same size through {@link #clear()}.
+ * <p>
+ * This code is available through the
+ * <a href="http://www.gnu.org/licenses/gpl-2.0.html">GNU GPL v2.0</a> license.
+ * <br>
+ * You can acess the full project at
+ * <a href="https://github.com/vitordeatorreao/bcgproject1">GitHub</a>.
+ * @author	<a href="https://github.com/vitordeatorreao/">V&iacute;tor de
+ * 			Albuquerque Torre&atilde;o</a>
+ * @version 1.0
+ * @since 1.0
+ */
+class GBuffer {
+
+	/**
+	 * The triangle of a pixel where nothing was drawn yet.
+	 */
+	static final int EMPTY = -1;
+
+	/**
+	 * The depth of a pixel where nothing was drawn yet.
+	 */
+	private static final float FAR = Float.MAX_VALUE;
+
+	private float[] depths;
+	private int[] triangles;
+	private double[] barycentrics;
+	private double[] positions;
+	private int width;
+	private int height;
+
+	/**
+	 * Constructor.
+	 * @param width		The width of the screen
+	 * @param height	The height of the screen
+	 */
+	GBuffer(int width, int height) {
+		this.depths = new float[width * height];
+		this.triangles = new int[width * height];
+		this.barycentrics = new double[3 * width * height];
+		this.positions = new double[3 * width * height];
+		this.width = width;
+		this.height = height;
+		clear();
+	}
+
+	/**
+	 * Resets every pixel to empty and infinitely far, so the
+	 * <code>GBuffer</code> can be used for a new frame.
+	 */
+	void clear() {
+		Arrays.fill(depths, FAR);
+		Arrays.fill(triangles, EMPTY);
+	}
+
+	/**
+	 * Sets what is seen through a pixel, if it is strictly nearer than
+	 * what was seen so far.
+	 * @param x			The column of the pixel
+	 * @param y			The row of the pixel
+	 * @param triangle	The triangle seen
+	 * @param alpha		The first barycentric coordinate in the triangle
+	 * @param beta		The second barycentric coordinate in the triangle
+	 * @param gama		The third barycentric coordinate in the triangle
+	 * @param point		The position of the point
+	 * @param deepness	The distance to the focus of the camera
+	 */
+	void set(int x, int y, int triangle, double alpha, double beta,
+			double gama, Vec3 point, double deepness) {
+		int i = (y * width) + x;
+		if (deepness < depths[i]) {
+			depths[i] = (float) deepness;
+			triangles[i] = triangle;
+			barycentrics[3*i] = alpha;
+			barycentrics[3*i + 1] = beta;
+			barycentrics[3*i + 2] = gama;
+			positions[3*i] = point.getX();
+			positions[3*i + 1] = point.getY();
+			positions[3*i + 2] = point.getZ();
+		}
+	}
+
+	/**
+	 * Returns the depth of a pixel.
+	 * @param x	The column of the pixel
+	 * @param y	The row of the pixel
+	 * @return the distance to the focus of the camera
+	 */
+	double getDeepness(int x, int y) {
+		return depths[(y * width) + x];
+	}
+
+	/**
+	 * Returns the triangle seen through a pixel.
+	 * @param x	The column of the pixel
+	 * @param y	The row of the pixel
+	 * @return the triangle, or {@link #EMPTY} if there is none
+	 */
+	int getTriangle(int x, int y) {
+		return triangles[(y * width) + x];
+	}
+
+	/**
+	 * Returns a barycentric coordinate of the point seen through a pixel.
+	 * @param x	The column of the pixel
+	 * @param y	The row of the pixel
+	 * @param k	<code>0</code> to <code>2</code> for alpha, beta and gama
+	 * @return the coordinate
+	 */
+	double getBarycentric(int x, int y, int k) {
+		return barycentrics[3*((y * width) + x) + k];
+	}
+
+	/**
+	 * Returns a coordinate of the position of the point seen through a
+	 * pixel.
+	 * @param x	The column of the pixel
+	 * @param y	The row of the pixel
+	 * @param k	<code>0</code> to <code>2</code> for x, y and z
+	 * @return the coordinate, in the world base
+	 */
+	double getPosition(int x, int y, int k) {
+		return positions[3*((y * width) + x) + k];
+	}
+
+	/**
+	 * Returns the width of the GBuffer
+	 * @return the width of the GBuffer
+	 */
+	int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Returns the height of the GBuffer
+	 * @return the height of the GBuffer
+	 */
+	int getHeight() {
+		return height;
+	}
+
+}
@@ -0,0 +1,85 @@
+package com.gmail.vitordeatorreao.screen;
+
+import com.gmail.vitordeatorreao.math.Vec3;
+import com.gmail.vitordeatorreao.scene.Mesh;
+
+/**
+ * This class implements
+ * <a href="http://en.wikipedia.org/wiki/Gouraud_shading">Gouraud
+ * shading</a>: every vertex is lit once per frame, with its own normal, and
+ * its color is interpolated over the triangles. Highlights smaller than the
+ * triangles are lost, but a pixel costs only an interpolation.
+ * <p>
+ * This code is available through the
+ * <a href="http://www.gnu.org/licenses/gpl-2.0.html">GNU GPL v2.0</a> license.
+ * <br>
+ * You can acess the full project at
+ * <a href="https://github.com/vitordeatorreao/bcgproject1">GitHub</a>.
+ * @author	<a href="https://github.com/vitordeatorreao/">V&iacute;tor de
+ * 			Albuquerque Torre&atilde;o</a>
+ * @version 1.0
+ * @since 1.0
+ */
+public class GouraudShading implements ShadingModel {
+
+	private final ColorCache cache = new ColorCache();
+
+	@Override
+	public Shader createShader(Mesh mesh, ShadingContext context) {
+		return new VertexColorShader(mesh, context,
+				cache.get(mesh, context, mesh.getNumVertices()));
+	}
+
+	@Override
+	public String toString() {
+		return "Gouraud";
+	}
+
+	/**
+	 * Interpolates the colors of the vertices, lighting them when they
+	 * are first needed.
+	 */
+	private static class VertexColorShader implements Shader {
+
+		private final Mesh mesh;
+		private final Illuminator illuminator;
+		private final int[] colors;
+		private final Vec3 position = new Vec3();
+		private final Vec3 normal = new Vec3();
+
+		VertexColorShader(Mesh mesh, ShadingContext context, int[] colors) {
+			this.mesh = mesh;
+			this.illuminator = new Illuminator(context);
+			this.colors = colors;
+		}
+
+		@Override
+		public int shade(int triangle, double alpha, double beta,
+				double gama, Vec3 point) {
+			int a = color(mesh.getIndex(triangle, 0));
+			int b = color(mesh.getIndex(triangle, 1));
+			int c = color(mesh.getIndex(triangle, 2));
+			return Illuminator.pack(
+					interpolate(a >> 16, b >> 16, c >> 16, alpha, beta, gama),
+					interpolate(a >> 8, b >> 8, c >> 8, alpha, beta, gama),
+					interpolate(a, b, c, alpha, beta, gama));
+		}
+
+		private int color(int vertex) {
+			int rgb = colors[vertex];
+			if (rgb == 0) {
+				position.set(mesh.getPositions(), 3 * vertex);
+				normal.set(mesh.getNormals(), 3 * vertex);
+				rgb = illuminator.illuminate(position, normal, false);
+				colors[vertex] = rgb;
+			}
+			return rgb;
+		}
+
+		private static double interpolate(int a, int b, int c,
+				double alpha, double beta, double gama) {
+			return alpha*(a & 0xFF) + beta*(b & 0xFF) + gama*(c & 0xFF);
+		}
+	}
+
+}
@@ -0,0 +1,169 @@
+package com.gmail.vitordeatorreao.screen;
+
+import com.gmail.vitordeatorreao.math.Vec3;
+
+/**
+ * This class computes the light reflected to the <code>Camera</code> by a
+ * point of a surface, by the
+ * <a href="http://en.wikipedia.org/wiki/Phong_reflection_model">Phong</a>
+ * reflection model, or by the
+ * <a href="http://en.wikipedia.org/wiki/Blinn%E2%80%93Phong_shading_model">
+ * Blinn-Phong</a> one. The {@link ShadingModel}s only differ in where they
+ * use it and how they spread its result over the triangles.
+ * <p>
+ * Colors are packed in <code>int</code>s, as <code>0xFFRRGGBB</code>, all
+ * the way to the {@link ZBuffer}. An instance keeps its own scratch
+ * vectors, so every thread needs its own.
+ * <p>
+ * This code is available through the
+ * <a href="http://www.gnu.org/licenses/gpl-2.0.html">GNU GPL v2.0</a> license.
+ * <br>
+ * You can acess the full project at
+ * <a href="https://github.com/vitordeatorreao/bcgproject1">GitHub</a>.
+ * @author	<a href="https://github.com/vitordeatorreao/">V&iacute;tor de
+ * 			Albuquerque Torre&atilde;o</a>
+ * @version 1.0
+ * @since 1.0
+ */
+class Illuminator {
+
+	private final ShadingContext context;
+	private final double exponent;
+	private final SpecularTable specularTable;
+	private final double ambient0, ambient1, ambient2;
+	private final double diffuse0, diffuse1, diffuse2;
+	private final double specular0, specular1, specular2;
+
+	private final Vec3 toEye = new Vec3();
+	private final Vec3 toLight = new Vec3();
+	private final Vec3 reflected = new Vec3();
+	private final Vec3 lightPosition = new Vec3();
+	private final Vec3 focus = new Vec3();
+
+	/**
+	 * Constructor.
+	 * @param context	The <code>Light</code> and <code>Camera</code> of
+	 * 					the frame
+	 */
+	Illuminator(ShadingContext context) {
+		this.context = context;
+		this.exponent = context.getExponent();
+		this.specularTable = context.getSpecularTable();
+		this.ambient0 = context.getAmbient(0);
+		this.ambient1 = context.getAmbient(1);
+		this.ambient2 = context.getAmbient(2);
+		this.diffuse0 = context.getDiffuse(0);
+		this.diffuse1 = context.getDiffuse(1);
+		this.diffuse2 = context.getDiffuse(2);
+		this.specular0 = context.getSpecular(0);
+		this.specular1 = context.getSpecular(1);
+		this.specular2 = context.getSpecular(2);
+		focus.set(context.getFocus(0), context.getFocus(1),
+				context.getFocus(2));
+		lightPosition.set(context.getLightPosition(0),
+				context.getLightPosition(1), context.getLightPosition(2));
+	}
+
+	/**
+	 * Returns the <code>ShadingContext</code> this lights with.
+	 * @return the <code>ShadingContext</code>
+	 */
+	ShadingContext getContext() {
+		return context;
+	}
+
+	/**
+	 * Computes the color of a point of a surface.
+	 * @param point		The point, in the world base
+	 * @param N			The normal of the surface at the point. It is
+	 * 					changed by this method.
+	 * @param halfway	<code>true</code> for the specular term of
+	 * 					Blinn-Phong, with the vector halfway between the
+	 * 					light and the eye, <code>false</code> for the one of
+	 * 					Phong, with the reflected light
+	 * @return the color of the point, packed as <code>0xFFRRGGBB</code>
+	 */
+	int illuminate(Vec3 point, Vec3 N, boolean halfway) {
+		N.normalize();
+
+		Vec3 V = toEye.set(focus).sub(point).normalize();
+
+		Vec3 L = toLight.set(lightPosition).sub(point).normalize();
+
+		double aux = 2.0 * N.dot(L);
+		Vec3 R = reflected.set(N).mult(aux).sub(L);
+
+		boolean noSpecular = false;
+		boolean noDiffuse = false;
+
+		//Special Cases
+		if (N.dot(L) < 0.0) {
+			if (V.dot(N) < 0.0) {
+				N.mult(-1.0);
+			} else {
+				noDiffuse = true;
+				noSpecular = true;
+			}
+		}
+
+		double specular;
+		if (halfway) {
+			Vec3 H = reflected.set(L).add(V).normalize();
+			specular = N.dot(H);
+		} else {
+			specular = R.dot(V);
+		}
+		if (specular < 0.0) {
+			noSpecular = true;
+		}
+
+		double I0 = ambient0, I1 = ambient1, I2 = ambient2;
+		if (!noSpecular) {
+			double m;
+			if (specularTable == null) {
+				m = Math.pow(specular, exponent);
+			} else {
+				m = specularTable.pow(specular);
+			}
+			I0 += m * specular0;
+			I1 += m * specular1;
+			I2 += m * specular2;
+		}
+		if (!noDiffuse) {
+			double nl = N.dot(L);
+			I0 += nl * diffuse0;
+			I1 += nl * diffuse1;
+			I2 += nl * diffuse2;
+		}
+
+		return pack(I0, I1, I2);
+	}
+
+	/**
+	 * Packs a color as an opaque <code>0xFFRRGGBB</code>, rounding every
+	 * channel and saturating it to <code>[0, 255]</code>.
+	 * @param red	The red channel
+	 * @param green	The green channel
+	 * @param blue	The blue channel
+	 * @return the packed color
+	 */
+	static int pack(double red, double green, double blue) {
+		return 0xFF000000 | (toChannel(red) << 16) | (toChannel(green) << 8) |
+				toChannel(blue);
+	}
+
+	/**
+	 * Rounds a channel of a color and saturates it to <code>[0, 255]</code>.
+	 */
+	private static int toChannel(double value) {
+		long l = Math.round(value);
+		if (l > 255) {
+			return 255;
+		} else if (l < 0) {
+			return 0;
+		} else {
+			return (int) l;
+		}
+	}
+
+}
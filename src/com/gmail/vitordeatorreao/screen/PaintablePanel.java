@@ -2,25 +2,72 @@ package com.gmail.vitordeatorreao.screen;
 
 import java.awt.Color;
 import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.RenderingHints;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.VolatileImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
 
+import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import javax.swing.border.EmptyBorder;
 
-import com.gmail.vitordeatorreao.math.BarycentricCoordinate;
-import com.gmail.vitordeatorreao.math.Vector;
-import com.gmail.vitordeatorreao.math.Vertex;
 import com.gmail.vitordeatorreao.scene.Camera;
 import com.gmail.vitordeatorreao.scene.Light;
+import com.gmail.vitordeatorreao.scene.Mesh;
+import com.gmail.vitordeatorreao.scene.NonConformantSceneFile;
 import com.gmail.vitordeatorreao.scene.Scene;
 import com.gmail.vitordeatorreao.scene.SceneController;
-import com.gmail.vitordeatorreao.scene.Triangle;
-import com.gmail.vitordeatorreao.utils.QuickSortVertices;
 
 /**
  * This class implements a JPanel that will create a 
  * <code>ScreenPainter</code> and paint its screen with the information 
  * of the loaded Scene.
  * <p>
+ * Every frame is rendered into the pixels of a <code>BufferedImage</code>, 
+ * which is then put on the screen with a single <code>drawImage</code>, 
+ * through a <code>VolatileImage</code> when the screen supports one.
+ * <p>
+ * Frames are rendered on a thread of their own, so the window keeps 
+ * responding while a big <code>Scene</code> is rendered. There are two 
+ * images: the back one, being rendered, and the front one, the last 
+ * complete frame, which is all that {@link #paintComponent(Graphics)} 
+ * draws. They are swapped when a frame is done. Asking for a new frame 
+ * cancels the one being rendered.
+ * <p>
+ * The front image is also a cache: it remembers the version of the 
+ * <code>Scene</code>, its <code>Camera</code> and <code>Light</code>, the 
+ * size of the panel and the settings it was rendered with. While none of 
+ * them changes, asking for a frame just draws that image again. How often 
+ * that happens is told by {@link #getFrameCacheHits()} and 
+ * {@link #getFrameCacheMisses()}.
+ * <p>
+ * While the window is resized or the <code>Camera</code> moves, frames are 
+ * asked for faster than they can be rendered. If the last frame suggests 
+ * that one of the full size would take longer than the frame budget, a 
+ * half or a quarter of the resolution is rendered instead, and scaled up 
+ * on the screen. Once nothing is asked for during a short while, the frame 
+ * is rendered again at full resolution.
+ * <p>
+ * A new <code>Scene</code> can also be rendered progressively, see 
+ * {@link #renderProgressively()}, so something is on the screen long 
+ * before a frame of a huge one is done.
+ * <p>
  * This code is available through the 
  * <a href="http://www.gnu.org/licenses/gpl-2.0.html">GNU GPL v2.0</a> license.
  * <br>
@@ -35,9 +82,92 @@ public class PaintablePanel extends JPanel {
 
 	private static final long serialVersionUID = 1025412576844168978L;
 	
-	private Triangle curTriangle;
-	private Vertex[] curVertices2D;
-	private ZBuffer zBuffer;
+	private static final int WHITE = 0xFFFFFF;
+	
+	/**
+	 * The largest number of pixels of the screen, in each direction, a 
+	 * pixel of a reduced frame may cover.
+	 */
+	private static final int MAX_SCALE = 4;
+	
+	/**
+	 * How long, in milliseconds, no frame must be asked for before a 
+	 * reduced one is rendered again at full resolution. Requests closer 
+	 * than this are taken as interaction.
+	 */
+	private static final int SETTLE_MILLIS = 150;
+	
+	/**
+	 * By how much the resolution of the first pass of a progressive frame 
+	 * is divided, and by how much every pass divides the scale of the one 
+	 * before. The passes are at 1/8, 1/2 and then full resolution.
+	 */
+	private static final int PROGRESSIVE_SCALE = 8;
+	private static final int PROGRESSIVE_STEP = 4;
+	
+	/**
+	 * The last complete frame, drawn on the screen, and the one being 
+	 * rendered. They are only swapped while holding 
+	 * <code>frameLock</code>.
+	 */
+	private BufferedImage front;
+	private BufferedImage back;
+	private int[] pixels;
+	private final Object frameLock = new Object();
+	
+	private VolatileImage volatileImage;
+	private final Renderer renderer = new Renderer();
+	
+	/**
+	 * Renders the frames one at a time, away from the event dispatch 
+	 * thread.
+	 */
+	private final ExecutorService renderExecutor = 
+			Executors.newSingleThreadExecutor(new ThreadFactory() {
+				
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "Renderer");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+	
+	/**
+	 * The number of the last frame asked for. A frame is only shown if no 
+	 * other one was asked for since.
+	 */
+	private final AtomicLong generation = new AtomicLong();
+	
+	/**
+	 * What the front image shows, and what the frame being rendered will, 
+	 * or <code>null</code> if no frame is being rendered.
+	 */
+	private FrameKey frontKey;
+	private FrameKey requestedKey;
+	
+	/**
+	 * How many frames were drawn from the front image, and how many had 
+	 * to be rendered.
+	 */
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	
+	/**
+	 * How long a frame may take, in milliseconds, while the user 
+	 * interacts. When the last requests came, and how long the last frame 
+	 * took for how many pixels.
+	 */
+	private volatile long frameBudget = 33;
+	private long lastRequest;
+	private long lastFrameNanos;
+	private long lastFramePixels;
+	
+	/**
+	 * Renders a reduced frame again at full resolution, once things 
+	 * settle.
+	 */
+	private final Timer refineTimer;
 	
 	/**
 	 * Creates a new <code>PaintablePanel</code> instance.
@@ -47,167 +177,466 @@ public class PaintablePanel extends JPanel {
 		super();
 		setBackground(Color.black);
 		setBorder(new EmptyBorder(10, 10, 10, 10));
+		refineTimer = new Timer(SETTLE_MILLIS, new ActionListener() {
+			
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				request(currentKey(), false);
+			}
+		});
+		refineTimer.setRepeats(false);
 	}
 	
 	/**
-	 * Reads the canvas from its <code>ScreenPainter</code> instance and 
-	 * and paints it on the screen.
+	 * Paints the last complete frame on the screen. If it no longer shows 
+	 * the <code>Scene</code> as it is, which is also the case after the 
+	 * window is resized, a new frame is rendered in the background.
 	 */
 	public void paintComponent(Graphics g) {
 		super.paintComponent(g);
 		
-		Scene scene = SceneController.getInstance().getScene();
-		
-		zBuffer = new ZBuffer(getWidth(), getHeight());
-		
-		for (Triangle t : scene.getTriangles()) {
-			curTriangle = t;
-			int[][] vertices = new int[3][2];
-			// ^- the 3 vertices in screen coordinates
-			
-			for (int k = 0; k < t.getEdges().length; k++) {
-				//Get each vertex screen coordinates
-				
-				//First, get the vertex
-				Vertex v = t.getEdges()[k].get(0);
-				
-				//Second, change to view base
-				Vector w = v.subtract(scene.getCamera().getFocus());
-				Vector wInViewBase = scene
-									 .getCamera()
-									 .getToViewBase()
-									 .mult(w);
-				
-				//Third, project in perspective
-				double xs, ys;
-				xs = scene.getCamera().getD() * 
-						(wInViewBase.get(0)/wInViewBase.get(2));
-				ys = scene.getCamera().getD() * 
-						(wInViewBase.get(1)/wInViewBase.get(2));
-				
-				//Forth, normalize
-				xs = xs/scene.getCamera().getHx();
-				ys = ys/scene.getCamera().getHy();
-				
-				//Fifth, get screen coordinates
-				int i,j;
-				double aux;
-				aux = ( ((xs+1)/2)*getWidth() ) + 0.5;
-				i = ((Double) Math.floor(aux)).intValue();
-				aux = (getHeight() - (((ys+1)/2) * getHeight()) + 0.5);
-				j = ((Double) Math.floor(aux)).intValue();
-				
-				//Now, fill the vertices array
-				vertices[k][0] = i;
-				vertices[k][1] = j;
+		synchronized (frameLock) {
+			request(currentKey(), true);
+			if (front != null) {
+				present(g);
 			}
-			
-			if (SwingPaint.getShowVertices() && 
-					(!SwingPaint.getShowEdges() || 
-							!SwingPaint.getShowFaces())
-				) {
-				//Now we have for 3 vertices in its screen coordinates
-				for (int i = 0; i < 3; i++) {
-					drawPixel(g, vertices[i][0], vertices[i][1], Color.white);
-					
+		}
+	}
+	
+	/**
+	 * Renders a new frame of the loaded <code>Scene</code> in the 
+	 * background, and repaints the panel when it is done. The frame being 
+	 * rendered, if any, is cancelled. It must be called after anything 
+	 * which changes the picture. If nothing did, the last complete frame 
+	 * is kept instead.
+	 */
+	public void renderLater() {
+		request(currentKey(), true);
+	}
+	
+	/**
+	 * Makes sure the front image is, or will be, a frame as described.
+	 * @param key		what the frame must show, at full resolution
+	 * @param adaptive	<code>true</code> if a reduced frame will do, and 
+	 * 					may be rendered if the user is interacting
+	 */
+	private void request(FrameKey key, boolean adaptive) {
+		synchronized (frameLock) {
+			if (adaptive ? key.sameView(frontKey) : key.equals(frontKey)) {
+				hits.incrementAndGet();
+				if (requestedKey != null && !key.sameView(requestedKey)) {
+					//Back to what is on the screen, the frame is not needed
+					requestedKey = null;
+					generation.incrementAndGet();
+					renderer.cancel();
 				}
+				return;
 			}
+			if (adaptive ? key.sameView(requestedKey) : 
+					key.equals(requestedKey)) {
+				//It is being rendered already
+				return;
+			}
+			if (adaptive) {
+				long now = System.nanoTime();
+				boolean interacting = lastRequest != 0 && 
+						now - lastRequest < SETTLE_MILLIS * 1000000L;
+				lastRequest = now;
+				if (interacting) {
+					key = key.scaled(chooseScale(key));
+				}
+			}
+			misses.incrementAndGet();
+			start(key, false);
+		}
+		if (key.scale > 1) {
+			refineTimer.restart();
+		}
+	}
+	
+	/**
+	 * Picks the smallest scale at which a frame is expected to take no 
+	 * longer than the frame budget, judging by the last frame.
+	 * @param key the frame to render
+	 * @return by how much the resolution is divided
+	 */
+	private int chooseScale(FrameKey key) {
+		long budget = frameBudget * 1000000L;
+		if (budget <= 0 || lastFramePixels == 0) {
+			return 1;
+		}
+		double nanosPerPixel = (double) lastFrameNanos / lastFramePixels;
+		int scale = 1;
+		while (scale < MAX_SCALE && nanosPerPixel * 
+				key.scaled(scale).getPixels() > budget) {
+			scale *= 2;
+		}
+		return scale;
+	}
+	
+	/**
+	 * Renders a new frame of the loaded <code>Scene</code> in passes, from 
+	 * coarse to fine, in the background. The first pass is at an eighth of 
+	 * the resolution, and is shown as soon as it is done, while the next 
+	 * ones are rendered. It is meant for a <code>Scene</code> which was 
+	 * just loaded, which has no frame to show yet. Otherwise, it is the 
+	 * same as {@link #renderLater()}.
+	 */
+	public void renderProgressively() {
+		FrameKey key = currentKey();
+		synchronized (frameLock) {
+			if (key.equals(frontKey)) {
+				hits.incrementAndGet();
+				return;
+			}
+			if (key.equals(requestedKey)) {
+				//The full frame is being rendered already
+				return;
+			}
+			misses.incrementAndGet();
+			start(key.scaled(PROGRESSIVE_SCALE), true);
+		}
+	}
+	
+	/**
+	 * Starts rendering a frame in the background, cancelling the one being 
+	 * rendered. It must be called holding <code>frameLock</code>.
+	 * @param key			what the frame must show
+	 * @param progressive	<code>true</code> to render the frame again at a 
+	 * 						finer scale once it is shown, until it is at full 
+	 * 						resolution
+	 */
+	private void start(final FrameKey key, final boolean progressive) {
+		final long frame = generation.incrementAndGet();
+		requestedKey = key;
+		renderer.cancel();
+		//Taken after the cancel, so only a later one stops this frame
+		final long token = renderer.getCancelToken();
+		renderExecutor.execute(new Runnable() {
 			
-			if (SwingPaint.getShowEdges() && !SwingPaint.getShowFaces()) {
-				//Now draw edges
-				for (int i = 0; i < 3; i++) {
-					drawLine(g, 
-							vertices[i][0], vertices[i][1], 
-							vertices[(i+1)%3][0], vertices[(i+1)%3][1], 
-							Color.white);
+			@Override
+			public void run() {
+				if (frame != generation.get()) {
+					//Another frame was asked for before this one started
+					return;
+				}
+				boolean done = false;
+				try {
+					long begin = System.nanoTime();
+					render(key.scene, key.getRenderWidth(), 
+							key.getRenderHeight(), token);
+					long elapsed = System.nanoTime() - begin;
+					//Sorting the triangles may have changed the version
+					FrameKey rendered = key.at(key.scene.getVersion());
+					synchronized (frameLock) {
+						if (frame == generation.get()) {
+							BufferedImage image = back;
+							back = front;
+							front = image;
+							frontKey = rendered;
+							requestedKey = null;
+							lastFrameNanos = elapsed;
+							lastFramePixels = key.getPixels();
+							done = true;
+							if (progressive && key.scale > 1) {
+								start(rendered.scaled(Math.max(1, 
+										key.scale / PROGRESSIVE_STEP)), true);
+							}
+						}
+					}
+				} catch (CancellationException e) {
+					return;
+				} finally {
+					if (!done) {
+						synchronized (frameLock) {
+							if (frame == generation.get()) {
+								requestedKey = null;
+							}
+						}
+					}
+				}
+				if (done) {
+					repaint();
 				}
 			}
+		});
+	}
+	
+	/**
+	 * Cancels the frame being rendered, and waits until the 
+	 * <code>Scene</code> is no longer being read. It must be called before 
+	 * the <code>Scene</code> is changed outside of the render thread. A new 
+	 * one should be loaded with {@link #loadLater(File)} instead.
+	 */
+	public void cancelRender() {
+		synchronized (frameLock) {
+			generation.incrementAndGet();
+			requestedKey = null;
+		}
+		renderer.cancel();
+		waitForRenderer();
+	}
+	
+	/**
+	 * Loads a .byu file into the <code>Scene</code> in the background, 
+	 * cancelling the frame being rendered. The file is read on the render 
+	 * thread, so no frame reads the <code>Scene</code> while it changes, 
+	 * and the event dispatch thread is free meanwhile. Once it is loaded, 
+	 * the new <code>Scene</code> is rendered progressively, or an error 
+	 * message is shown if the file could not be loaded.
+	 * @param file	the .byu file to be loaded
+	 */
+	public void loadLater(final File file) {
+		synchronized (frameLock) {
+			generation.incrementAndGet();
+			requestedKey = null;
+		}
+		renderer.cancel();
+		renderExecutor.execute(new Runnable() {
 			
-			if (SwingPaint.getShowFaces()) {
-				//Now draw the entire triangle
-				//This is necessary to the ZBuffer calculation
-				curVertices2D = new Vertex[3];
-				
-				curVertices2D[0] = new Vertex(
-						new double[] {vertices[0][0], vertices[0][1]}
-				);
-				curVertices2D[1] = new Vertex(
-						new double[] {vertices[1][0], vertices[1][1]}
-				);
-				curVertices2D[2] = new Vertex(
-						new double[] {vertices[2][0], vertices[2][1]}
-				);
-				
-				QuickSortVertices qsv = new QuickSortVertices();
-				qsv.sort(vertices);
-								
-				if (vertices[1][1] == vertices[2][1]) {
-					//Case of bottom flat triangle
-					fillBottomFlatTriangle(g, 
-							vertices[0], vertices[1], vertices[2], 
-							Color.white);
-					
-				} else if (vertices[0][1] == vertices[1][1]) {
-					//Case of top flat triangle
-					fillTopFlatTriangle(g, 
-							vertices[0], vertices[1], vertices[2], 
-							Color.white);
-					
-				} else {
-					//General case
-					int[] vertice4 = new int[2];
-					vertice4[0] = (int) (vertices[0][0] + 
-						( (
-								(double) (vertices[1][1] - vertices[0][1]) / 
-								(double) (vertices[2][1] - vertices[0][1])
-						) * (vertices[2][0] - vertices[0][0]) ));
-					vertice4[1] = vertices[1][1];
-					
-					fillBottomFlatTriangle(g, 
-							vertices[0], vertices[1], vertice4, 
-							Color.white);
-					
-					fillTopFlatTriangle(g,
-							vertices[1], vertice4, vertices[2], 
-							Color.white);
+			@Override
+			public void run() {
+				String error = null;
+				try {
+					SceneController.getInstance().loadScene(file);
+				} catch (IOException | NonConformantSceneFile e) {
+					error = e.getMessage();
 				}
+				final String message = error;
+				SwingUtilities.invokeLater(new Runnable() {
+					
+					@Override
+					public void run() {
+						if (message != null) {
+							JOptionPane.showMessageDialog(
+									SwingUtilities.getWindowAncestor(
+											PaintablePanel.this), 
+									message, "Error while opening file", 
+									JOptionPane.ERROR_MESSAGE);
+						}
+						renderProgressively();
+					}
+				});
 			}
+		});
+	}
+	
+	/**
+	 * Returns how many times a frame was asked for and the last complete 
+	 * one was drawn again, because nothing had changed.
+	 * @return the number of hits of the frame cache
+	 */
+	public long getFrameCacheHits() {
+		return hits.get();
+	}
+	
+	/**
+	 * Returns how many times a frame was asked for and had to be rendered.
+	 * @return the number of misses of the frame cache
+	 */
+	public long getFrameCacheMisses() {
+		return misses.get();
+	}
+	
+	/**
+	 * Returns how long a frame may take while the user interacts.
+	 * @return the frame budget, in milliseconds
+	 */
+	public long getFrameBudget() {
+		return frameBudget;
+	}
+	
+	/**
+	 * Sets how long a frame may take while the user resizes the window or 
+	 * moves the <code>Camera</code>, such as 16 or 33 milliseconds. Frames 
+	 * expected to take longer are rendered at a lower resolution until 
+	 * the user stops. It is 33 milliseconds by default.
+	 * @param frameBudget	the frame budget, in milliseconds, or 
+	 * 						<code>0</code> to always render at full 
+	 * 						resolution
+	 */
+	public void setFrameBudget(long frameBudget) {
+		if (frameBudget < 0) {
+			throw new IllegalArgumentException(
+					"The frame budget cannot be negative: " + frameBudget);
+		}
+		this.frameBudget = frameBudget;
+	}
+	
+	/**
+	 * Waits until the frames asked for so far are rendered or cancelled.
+	 */
+	private void waitForRenderer() {
+		Future<?> idle = renderExecutor.submit(new Runnable() {
 			
+			@Override
+			public void run() {
+				//The frames before this one are done
+			}
+		});
+		try {
+			idle.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+	
+	/**
+	 * Returns a copy of the last complete frame. If it no longer shows 
+	 * the <code>Scene</code> as it is, or is of a reduced resolution, a new 
+	 * one is rendered first, and this waits for it.
+	 * @return the rendered image
+	 */
+	public BufferedImage getImage() {
+		request(currentKey(), false);
+		waitForRenderer();
+		synchronized (frameLock) {
+			if (front == null) {
+				return null;
+			}
+			BufferedImage copy = new BufferedImage(front.getWidth(), 
+					front.getHeight(), BufferedImage.TYPE_INT_RGB);
+			Graphics g = copy.getGraphics();
+			g.drawImage(front, 0, 0, null);
+			g.dispose();
+			return copy;
+		}
+	}
+	
+	/**
+	 * Returns the <code>Renderer</code> which renders the faces of the 
+	 * <code>Scene</code> on this panel.
+	 * @return the <code>Renderer</code>
+	 */
+	public Renderer getRenderer() {
+		return renderer;
+	}
+	
+	/**
+	 * Draws the last complete frame on the screen. When possible it is 
+	 * first copied into a <code>VolatileImage</code>, which the screen can 
+	 * draw faster. A reduced frame is scaled up to the size of the panel.
+	 * @param g a <code>Graphics</code> instance
+	 */
+	private void present(Graphics g) {
+		int scale = frontKey == null ? 1 : frontKey.scale;
+		int width = front.getWidth() * scale;
+		int height = front.getHeight() * scale;
+		if (scale > 1 && g instanceof Graphics2D) {
+			((Graphics2D) g).setRenderingHint(RenderingHints.KEY_INTERPOLATION, 
+					RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		}
+		GraphicsConfiguration gc = getGraphicsConfiguration();
+		if (gc == null) {
+			g.drawImage(front, 0, 0, width, height, null);
+			return;
+		}
+		do {
+			if (volatileImage == null || 
+					volatileImage.getWidth() != front.getWidth() || 
+					volatileImage.getHeight() != front.getHeight() || 
+					volatileImage.validate(gc) == 
+						VolatileImage.IMAGE_INCOMPATIBLE) {
+				volatileImage = gc.createCompatibleVolatileImage(
+						front.getWidth(), front.getHeight());
+			}
+			Graphics vg = volatileImage.createGraphics();
+			vg.drawImage(front, 0, 0, null);
+			vg.dispose();
+			g.drawImage(volatileImage, 0, 0, width, height, null);
+		} while (volatileImage.contentsLost());
+	}
+	
+	/**
+	 * Describes the frame which would be rendered now.
+	 * @return the <code>FrameKey</code>
+	 */
+	private FrameKey currentKey() {
+		Scene scene = SceneController.getInstance().getScene();
+		return new FrameKey(scene, scene.getVersion(), 
+				Math.max(1, getWidth()), Math.max(1, getHeight()), 
+				renderer.getSettingsVersion(), SwingPaint.getShowVertices(), 
+				SwingPaint.getShowEdges(), SwingPaint.getShowFaces());
+	}
+	
+	/**
+	 * Renders a <code>Scene</code> into the back image. It runs on the 
+	 * render thread.
+	 * @param token	the cancel token of the <code>Renderer</code> taken 
+	 * 				when the frame was asked for
+	 */
+	private void render(Scene scene, int width, int height, long token) {
+		if (back == null || back.getWidth() != width || 
+				back.getHeight() != height) {
+			back = new BufferedImage(width, height, 
+					BufferedImage.TYPE_INT_RGB);
+		}
+		pixels = ((DataBufferInt) back.getRaster().getDataBuffer())
+				.getData();
+		Arrays.fill(pixels, 0);
+		
+		if (SwingPaint.getShowFaces()) {
+			ZBuffer zBuffer = renderer.render(scene, width, height, token);
+			
+			//Paint ZBuffer, both are row-major with the same size
+			System.arraycopy(zBuffer.getColors(), 0, pixels, 0, 
+					pixels.length);
+			return;
 		}
 		
-		//Paint ZBuffer
-		for (int i = 0; i < getWidth(); i++) {
-			for (int j = 0; j < getHeight(); j++) {
-				Color c = zBuffer.getColor(i, j);
-				drawPixel(g, i, j, c);
+		int numTriangles = renderer.project(scene, width, height);
+		int[] screen = renderer.getScreenCoordinates();
+		Mesh mesh = scene.getMesh();
+		for (int t = 0; t < numTriangles; t++) {
+			
+			if (SwingPaint.getShowVertices() && !SwingPaint.getShowEdges()) {
+				//Now we have for 3 vertices in its screen coordinates
+				for (int i = 0; i < 3; i++) {
+					int v = 2 * mesh.getIndex(t, i);
+					drawPixel(screen[v], screen[v + 1], WHITE);
+				}
+			}
+			
+			if (SwingPaint.getShowEdges()) {
+				//Now draw edges
+				for (int i = 0; i < 3; i++) {
+					int v = 2 * mesh.getIndex(t, i);
+					int w = 2 * mesh.getIndex(t, (i+1)%3);
+					drawLine(screen[v], screen[v + 1], 
+							screen[w], screen[w + 1], 
+							WHITE);
+				}
 			}
 		}
 	}
 
 	/**
-	 * Paints a pixel on the screen.
+	 * Paints a pixel on the screen, in the frame being rendered.
 	 * It is a project requirement that the code must only call this 
 	 * function to paint the screen.
-	 * @param g a <code>Graphics</code> instance
 	 * @param x The x coordinate of the pixel
 	 * @param y The y coordinate of the pixel
-	 * @param c The <code>Color</code> for the pixel
+	 * @param rgb The color for the pixel, packed as <code>0xRRGGBB</code>
 	 */
-	public void drawPixel(Graphics g, int x, int y, Color c) {
-		g.setColor(c);
-		g.fillRect(x, y, 1, 1);
+	public void drawPixel(int x, int y, int rgb) {
+		if (x < 0 || y < 0 || x >= back.getWidth() || 
+				y >= back.getHeight()) {
+			return;
+		}
+		pixels[(y * back.getWidth()) + x] = rgb;
 	}
 	
 	/**
 	 * Paints a straight line between two screen coordinates
-	 * @param g a <code>Graphics</code> instance
 	 * @param x1 The x coordinate of the first pixel 
 	 * @param y1 The y coordinate of the first pixel
 	 * @param x2 The x coordinate of the second pixel
 	 * @param y2 The y coordinate of the second pixel
-	 * @param c The <code>Color</code> for the line
+	 * @param rgb The color for the line, packed as <code>0xRRGGBB</code>
 	 */
-	public void drawLine(Graphics g, int x1, int y1, int x2, int y2, Color c) {
+	public void drawLine(int x1, int y1, int x2, int y2, int rgb) {
 		//Rasterize a Line using BresenhamAlgorithm for Integers
 		boolean changed = false;
 		int x = x1;
@@ -228,7 +657,7 @@ public class PaintablePanel extends JPanel {
 		}
 		double e = (2 * dy) - dx;
 		for (int i = 1; i <= dx; i++) {
-			drawPixel(g, x, y, c);
+			drawPixel(x, y, rgb);
 			while(e >= 0) {
 				if (changed) {
 					x = x + signx;
@@ -246,119 +675,6 @@ public class PaintablePanel extends JPanel {
 		}
 	}
 
-	/**
-	 * Paints a special case of a bottom-flat triangle.
-	 * @param g a <code>Graphics</code> instance
-	 * @param v1 Top vertex of the triangle
-	 * @param v2 One of the bottom vertices of the triangle
-	 * @param v3 The other bottom vertex of the triangle
-	 * @param c a <code>Color</code> to paint the triangle
-	 */
-	public void fillBottomFlatTriangle(Graphics g, 
-					int[] v1, int[] v2, int[] v3, Color c) {
-		
-		double invslope1 =	((double) (v2[0] - v1[0])) / 
-							((double) (v2[1] - v1[1]));
-		double invslope2 =	((double) (v3[0] - v1[0])) / 
-							((double) (v3[1] - v1[1]));
-		
-		double curx1 = v1[0];
-		double curx2 = v1[0];
-		
-		for (int scanlineY = v1[1]; scanlineY <= v2[1]; scanlineY++) {
-			//Avoiding calculating for pixels outside the screen
-			if (v2[1] < 0) {
-				break;
-			}
-			if (scanlineY < 0) {
-				//Update curx1 and curx2 straight to correct slope
-				curx1 += invslope1 * (0 - scanlineY);
-				curx2 += invslope2 * (0 - scanlineY);
-				scanlineY = 0;
-			}
-			if (scanlineY > getHeight()) {
-				break;
-			}
-			
-			int xMin = Math.min((int) curx1, (int) curx2);
-			int xMax = Math.max((int) curx1, (int) curx2);
-			for (int x = xMin; x <= xMax; x++) {
-				//Avoiding calculating for pixels outside the screen
-				if (xMax < 0) {
-					break;
-				}
-				if (x < 0) {
-					x = 0;
-				}
-				if (x > getWidth()) {
-					break;
-				}
-				calcZBuffer(x, scanlineY);
-			}
-			
-			curx1 += invslope1;
-			curx2 += invslope2;
-			
-		}
-		
-	}
-	
-	/**
-	 * Paints a special case of a top-flat triangle.
-	 * @param g a <code>Graphics</code> instance
-	 * @param v1 Bottom vertex of the triangle
-	 * @param v2 One of the top vertices of the triangle
-	 * @param v3 The other top vertex of the triangle
-	 * @param c a <code>Color</code> to paint the triangle
-	 */
-	public void fillTopFlatTriangle(Graphics g, 
-			int[] v1, int[] v2, int v3[], Color c) {
-		
-		double invslope1 =	((double) (v1[0] - v3[0])) / 
-							((double) (v1[1] - v3[1]));
-		double invslope2 =	((double) (v2[0] - v3[0])) / 
-							((double) (v2[1] - v3[1]));
-		
-		double curx1 = v3[0];
-		double curx2 = v3[0];
-		
-		for (int scanlineY = v3[1]; scanlineY > v1[1]; scanlineY--) {
-			//Avoiding calculating for pixels outside the screen
-			if (v1[1] > getHeight()) {
-				break;
-			}
-			if (scanlineY > getHeight()) {
-				//Update curx1 and curx2 straight to correct slope
-				curx1 -= invslope1 * (scanlineY - getHeight());
-				curx2 -= invslope2 * (scanlineY - getHeight());
-				scanlineY = getHeight();
-			}
-			if (scanlineY < 0) {
-				break;
-			}
-			
-			int xMin = Math.min((int) curx1, (int) curx2);
-			int xMax = Math.max((int) curx1, (int) curx2);
-			for (int x = xMin; x <= xMax; x++) {
-				//Avoiding calculating for pixels outside the screen
-				if (xMax < 0) {
-					break;
-				}
-				if (x < 0) {
-					x = 0;
-				}
-				if (x > getWidth()) {
-					break;
-				}
-				calcZBuffer(x, scanlineY);
-			}
-			
-			curx1 -= invslope1;
-			curx2 -= invslope2;
-		}
-		
-	}
-	
 	/**
 	 * Function to evaluate the signal of an integer.
 	 * @param i The integer being evaluated
@@ -376,137 +692,109 @@ public class PaintablePanel extends JPanel {
 		}
 	}
 	
-	private void calcZBuffer(int x, int y) {
-		Camera camera = SceneController.getInstance().getScene().getCamera();
+	/**
+	 * Everything a frame depends on. Two frames with equal keys look the 
+	 * same.
+	 */
+	private static final class FrameKey {
+		
+		private final Scene scene;
+		private final long sceneVersion;
+		private final Camera camera;
+		private final Light light;
+		private final int width;
+		private final int height;
+		private final int settingsVersion;
+		private final boolean showVertices;
+		private final boolean showEdges;
+		private final boolean showFaces;
+		private final int scale;
+		
+		FrameKey(Scene scene, long sceneVersion, int width, int height, 
+				int settingsVersion, boolean showVertices, 
+				boolean showEdges, boolean showFaces) {
+			this(scene, sceneVersion, width, height, settingsVersion, 
+					showVertices, showEdges, showFaces, 1);
+		}
 		
-		Vertex v = new Vertex(
-				new double[] {x, y}
-		);
-		BarycentricCoordinate bc;
-		/* It might happen that a triangle be projected into a straight line
-		 * in screen coordinates. If so, it is impossible to calculate the
-		 * Barycentric Coordinates, because they are collinear.
-		 * In that case, ignore this one.
+		private FrameKey(Scene scene, long sceneVersion, int width, 
+				int height, int settingsVersion, boolean showVertices, 
+				boolean showEdges, boolean showFaces, int scale) {
+			this.scene = scene;
+			this.sceneVersion = sceneVersion;
+			this.camera = scene.getCamera();
+			this.light = scene.getLight();
+			this.width = width;
+			this.height = height;
+			this.settingsVersion = settingsVersion;
+			this.showVertices = showVertices;
+			this.showEdges = showEdges;
+			this.showFaces = showFaces;
+			this.scale = scale;
+		}
+		
+		/**
+		 * Returns the same key for another version of the 
+		 * <code>Scene</code>.
 		 */
-		try {
-			bc = new BarycentricCoordinate(
-					v, curVertices2D[0], curVertices2D[1], curVertices2D[2]
-			);
-		} catch(IllegalArgumentException e) {
-			return;
+		FrameKey at(long version) {
+			return new FrameKey(scene, version, width, height, 
+					settingsVersion, showVertices, showEdges, showFaces, 
+					scale);
 		}
-		double[] pCoords = new double[3];
-		pCoords[0] = 
-				bc.getCoord(0)*curTriangle.getVertex(0).getCoord(0)+
-				bc.getCoord(1)*curTriangle.getVertex(1).getCoord(0)+
-				bc.getCoord(2)*curTriangle.getVertex(2).getCoord(0);
-		pCoords[1] = 
-				bc.getCoord(0)*curTriangle.getVertex(0).getCoord(1)+
-				bc.getCoord(1)*curTriangle.getVertex(1).getCoord(1)+
-				bc.getCoord(2)*curTriangle.getVertex(2).getCoord(1);
-		pCoords[2] = 
-				bc.getCoord(0)*curTriangle.getVertex(0).getCoord(2)+
-				bc.getCoord(1)*curTriangle.getVertex(1).getCoord(2)+
-				bc.getCoord(2)*curTriangle.getVertex(2).getCoord(2);
-		Vertex originalP = new Vertex(pCoords);
 		
-		Vector vct = camera.getFocus().subtract(originalP);
-		double deepness = vct.getNorm();
+		/**
+		 * Returns the same key for a frame with the resolution divided by 
+		 * a scale.
+		 */
+		FrameKey scaled(int scale) {
+			return new FrameKey(scene, sceneVersion, width, height, 
+					settingsVersion, showVertices, showEdges, showFaces, 
+					scale);
+		}
 		
-		if (deepness < zBuffer.getDeepness(x, y)) {
-			//Calculate color and update zBuffer
-			Light light = SceneController.getInstance().getScene().getLight();
-			Color c;
-			if (light == null) {
-				c = Color.black;
-			} else {
-				double alpha = bc.getCoord(0);
-				double beta = bc.getCoord(1);
-				double gama = bc.getCoord(2);
-				
-				Vector N1 = curTriangle.getVertex(0).getNormal();
-				Vector N2 = curTriangle.getVertex(1).getNormal();
-				Vector N3 = curTriangle.getVertex(2).getNormal();
-				
-				Vector N = N1.mult(alpha)
-						.add(N2.mult(beta))
-						.add(N3.mult(gama));
-				
-				N = N.normalize();
-				
-				Vector V = camera.getFocus().subtract(originalP);
-				V = V.normalize();
-				
-				Vector L = light.getpL().subtract(originalP);
-				L = L.normalize();
-				
-				double aux = 2.0 * N.scalarMult(L);
-				Vector R = (N.mult(aux)).sub(L);
-				
-				boolean noSpecular = false;
-				boolean noDiffuse = false;
-				
-				//Special Cases
-				if (N.scalarMult(L) < 0.0) {
-					if (V.scalarMult(N) < 0.0) {
-						N = N.mult(-1.0);
-					} else {
-						noDiffuse = true;
-						noSpecular = true;
-					}
-				}
-				
-				if (V.scalarMult(R) < 0.0) {
-					noSpecular = true;
-				}
-				
-				double[] Is = new double[] {0.0, 0.0, 0.0};
-				if (!noSpecular) {
-					double m =	Math.pow(R.scalarMult(V), light.getN()) *
-								light.getkS();
-					Is[0] = m*light.getiL().getRed();
-					Is[1] = m*light.getiL().getGreen();
-					Is[2] = m*light.getiL().getBlue();
-				}
-				double[] Id = new double[] {0.0, 0.0, 0.0};
-				if (!noDiffuse) {
-					Vector M = light.getkD().mult(N.scalarMult(L));
-					
-					Id[0] = M.get(0) *
-							light.getoD().get(0) *
-							light.getiL().getRed();
-					Id[1] = M.get(1) *
-							light.getoD().get(1) *
-							light.getiL().getGreen();
-					Id[2] = M.get(2) *
-							light.getoD().get(2) *
-							light.getiL().getBlue();	
-				}
-				double[] Ia = new double[3];
-				Ia[0] = light.getkA()*light.getiAmb().getRed();
-				Ia[1] = light.getkA()*light.getiAmb().getGreen();
-				Ia[2] = light.getkA()*light.getiAmb().getBlue();
-				
-				int[] I = new int[3];
-				I[0] = roundToColor(Math.round(Ia[0] + Is[0] + Id[0]));
-				I[1] = roundToColor(Math.round(Ia[1] + Is[1] + Id[1]));
-				I[2] = roundToColor(Math.round(Ia[2] + Is[2] + Id[2]));
-				
-				c = new Color(I[0], I[1], I[2]);
-				
+		int getRenderWidth() {
+			return (width + scale - 1) / scale;
+		}
+		
+		int getRenderHeight() {
+			return (height + scale - 1) / scale;
+		}
+		
+		long getPixels() {
+			return (long) getRenderWidth() * getRenderHeight();
+		}
+		
+		/**
+		 * Tells if another key shows the same, maybe at another scale.
+		 */
+		boolean sameView(FrameKey other) {
+			return other != null && equals(other.scaled(scale));
+		}
+		
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof FrameKey)) {
+				return false;
 			}
-			zBuffer.set(x, y, c, deepness);
+			FrameKey other = (FrameKey) o;
+			return scale == other.scale && scene == other.scene && 
+					sceneVersion == other.sceneVersion && 
+					camera == other.camera && light == other.light && 
+					width == other.width && height == other.height && 
+					settingsVersion == other.settingsVersion && 
+					showVertices == other.showVertices && 
+					showEdges == other.showEdges && 
+					showFaces == other.showFaces;
 		}
-				
-	}
-	
-	private int roundToColor(long l) {
-		if (l > 255) {
-			return 255;
-		} else if (l < 0) {
-			return 0;
-		} else {
-			return new Long(l).intValue();
+		
+		@Override
+		public int hashCode() {
+			int hash = System.identityHashCode(scene);
+			hash = 31 * hash + (int) (sceneVersion ^ (sceneVersion >>> 32));
+			hash = 31 * hash + width;
+			hash = 31 * hash + height;
+			return 31 * hash + settingsVersion;
 		}
 	}
 
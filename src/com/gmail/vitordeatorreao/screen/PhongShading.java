@@ -0,0 +1,71 @@
+package com.gmail.vitordeatorreao.screen;
+
+import com.gmail.vitordeatorreao.math.Vec3;
+import com.gmail.vitordeatorreao.scene.Mesh;
+
+/**
+ * This class implements
+ * <a href="http://en.wikipedia.org/wiki/Phong_shading">Phong shading</a>:
+ * the normals of the vertices are interpolated over the triangle and every
+ * pixel is lit by the Phong reflection model. It gives the best highlights,
+ * at the highest cost. This is the default {@link ShadingModel}.
+ * <p>
+ * This code is available through the
+ * <a href="http://www.gnu.org/licenses/gpl-2.0.html">GNU GPL v2.0</a> license.
+ * <br>
+ * You can acess the full project at
+ * <a href="https://github.com/vitordeatorreao/bcgproject1">GitHub</a>.
+ * @author	<a href="https://github.com/vitordeatorreao/">V&iacute;tor de
+ * 			Albuquerque Torre&atilde;o</a>
+ * @version 1.0
+ * @since 1.0
+ */
+public class PhongShading implements ShadingModel {
+
+	@Override
+	public Shader createShader(Mesh mesh, ShadingContext context) {
+		return new InterpolatedNormalShader(mesh, context, false);
+	}
+
+	@Override
+	public String toString() {
+		return "Phong";
+	}
+
+	/**
+	 * Lights every pixel with the normal interpolated from the vertices.
+	 * It is shared with {@link BlinnPhongShading}.
+	 */
+	static class InterpolatedNormalShader implements Shader {
+
+		private final Mesh mesh;
+		private final Illuminator illuminator;
+		private final boolean halfway;
+		private final Vec3 normal = new Vec3();
+
+		InterpolatedNormalShader(Mesh mesh, ShadingContext context,
+				boolean halfway) {
+			this.mesh = mesh;
+			this.illuminator = new Illuminator(context);
+			this.halfway = halfway;
+		}
+
+		@Override
+		public int shade(int triangle, double alpha, double beta,
+				double gama, Vec3 point) {
+			double[] normals = mesh.getNormals();
+			int ia = 3 * mesh.getIndex(triangle, 0);
+			int ib = 3 * mesh.getIndex(triangle, 1);
+			int ic = 3 * mesh.getIndex(triangle, 2);
+			normal.set(
+					alpha*normals[ia] + beta*normals[ib] +
+						gama*normals[ic],
+					alpha*normals[ia + 1] + beta*normals[ib + 1] +
+						gama*normals[ic + 1],
+					alpha*normals[ia + 2] + beta*normals[ib + 2] +
+						gama*normals[ic + 2]);
+			return illuminator.illuminate(point, normal, halfway);
+		}
+	}
+
+}
@@ -0,0 +1,140 @@
+package com.gmail.vitordeatorreao.screen;
+
+/**
+ * This class implements a half-space rasterizer for triangles in screen
+ * coordinates.<br>
+ * Each edge of the triangle is turned into an edge function, which is zero
+ * on the edge and grows linearly towards the opposite vertex. A pixel is
+ * inside the triangle when the three functions are not negative, and the
+ * functions divided by the area of the triangle are the barycentric
+ * coordinates of the pixel. All of that is set up once per triangle, and
+ * then only stepped with additions across its bounding box.
+ * <p>
+ * Pixels are sampled at their integer coordinates and pixels exactly on an
+ * edge are covered, so triangles sharing an edge leave no gaps between them.
+ * <p>
+ * This code is available through the
+ * <a href="http://www.gnu.org/licenses/gpl-2.0.html">GNU GPL v2.0</a> license.
+ * <br>
+ * You can acess the full project at
+ * <a href="https://github.com/vitordeatorreao/bcgproject1">GitHub</a>.
+ * @author	<a href="https://github.com/vitordeatorreao/">V&iacute;tor de
+ * 			Albuquerque Torre&atilde;o</a>
+ * @version 1.0
+ * @since 1.0
+ */
+public class Rasterizer {
+
+	/**
+	 * Receives the pixels covered by a triangle.
+	 */
+	public interface FragmentListener {
+
+		/**
+		 * Called once for every pixel covered by the triangle.
+		 * @param x		The x coordinate of the pixel
+		 * @param y		The y coordinate of the pixel
+		 * @param alpha	The barycentric coordinate of the first vertex
+		 * @param beta	The barycentric coordinate of the second vertex
+		 * @param gama	The barycentric coordinate of the third vertex
+		 */
+		void fragment(int x, int y, double alpha, double beta, double gama);
+	}
+
+	/*
+	 * Edge function i is a*x + b*y + c, zero on the edge opposite to
+	 * vertex i and positive inside the triangle.
+	 */
+	private double a0, b0, c0;
+	private double a1, b1, c1;
+	private double a2, b2, c2;
+	private double invArea;
+	private int minX, minY, maxX, maxY;
+
+	/**
+	 * Sets up a triangle to be rasterized.
+	 * @param x0 The x coordinate of the first vertex
+	 * @param y0 The y coordinate of the first vertex
+	 * @param x1 The x coordinate of the second vertex
+	 * @param y1 The y coordinate of the second vertex
+	 * @param x2 The x coordinate of the third vertex
+	 * @param y2 The y coordinate of the third vertex
+	 * @return	<code>false</code> if the triangle is degenerate, i.e. its
+	 * 			vertices are collinear, and there is nothing to rasterize;
+	 * 			<code>true</code> otherwise
+	 */
+	public boolean setup(int x0, int y0, int x1, int y1, int x2, int y2) {
+		a0 = (double) y1 - y2;
+		b0 = (double) x2 - x1;
+		c0 = ((double) x1 * y2) - ((double) x2 * y1);
+
+		a1 = (double) y2 - y0;
+		b1 = (double) x0 - x2;
+		c1 = ((double) x2 * y0) - ((double) x0 * y2);
+
+		a2 = (double) y0 - y1;
+		b2 = (double) x1 - x0;
+		c2 = ((double) x0 * y1) - ((double) x1 * y0);
+
+		double area = c0 + c1 + c2;
+		if (area == 0) {
+			return false;
+		}
+		if (area < 0) {
+			//Clockwise, flip the functions so the inside is positive
+			a0 = -a0; b0 = -b0; c0 = -c0;
+			a1 = -a1; b1 = -b1; c1 = -c1;
+			a2 = -a2; b2 = -b2; c2 = -c2;
+			area = -area;
+		}
+		invArea = 1.0 / area;
+
+		minX = Math.min(x0, Math.min(x1, x2));
+		minY = Math.min(y0, Math.min(y1, y2));
+		maxX = Math.max(x0, Math.max(x1, x2));
+		maxY = Math.max(y0, Math.max(y1, y2));
+		return true;
+	}
+
+	/**
+	 * Rasterizes the triangle which was set up last, restricted to a
+	 * rectangle of the screen.
+	 * @param left		The smallest x coordinate to rasterize
+	 * @param top		The smallest y coordinate to rasterize
+	 * @param right		The largest x coordinate to rasterize
+	 * @param bottom	The largest y coordinate to rasterize
+	 * @param listener	Where the covered pixels are sent
+	 */
+	public void rasterize(int left, int top, int right, int bottom,
+			FragmentListener listener) {
+		int fromX = Math.max(left, minX);
+		int fromY = Math.max(top, minY);
+		int toX = Math.min(right, maxX);
+		int toY = Math.min(bottom, maxY);
+		if (fromX > toX || fromY > toY) {
+			return;
+		}
+
+		double w0Row = (a0 * fromX) + (b0 * fromY) + c0;
+		double w1Row = (a1 * fromX) + (b1 * fromY) + c1;
+		double w2Row = (a2 * fromX) + (b2 * fromY) + c2;
+		for (int y = fromY; y <= toY; y++) {
+			double w0 = w0Row;
+			double w1 = w1Row;
+			double w2 = w2Row;
+			for (int x = fromX; x <= toX; x++) {
+				if (w0 >= 0 && w1 >= 0 && w2 >= 0) {
+					listener.fragment(x, y,
+							w0 * invArea, w1 * invArea, w2 * invArea);
+				}
+				w0 += a0;
+				w1 += a1;
+				w2 += a2;
+			}
+			w0Row += b0;
+			w1Row += b1;
+			w2Row += b2;
+		}
+	}
+
+}
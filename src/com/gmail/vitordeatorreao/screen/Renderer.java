@@ -0,0 +1,1103 @@
+package com.gmail.vitordeatorreao.screen;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.gmail.vitordeatorreao.math.Vec3;
+import com.gmail.vitordeatorreao.math.Vertex;
+import com.gmail.vitordeatorreao.scene.Camera;
+import com.gmail.vitordeatorreao.scene.Light;
+import com.gmail.vitordeatorreao.scene.Mesh;
+import com.gmail.vitordeatorreao.scene.NonConformantSceneFile;
+import com.gmail.vitordeatorreao.scene.Scene;
+import com.gmail.vitordeatorreao.scene.SceneController;
+
+/**
+ * This class renders the faces of a <code>Scene</code> into a
+ * {@link ZBuffer}, using several cores.<br>
+ * The vertices are first projected to the screen, once each, by a
+ * {@link VertexProcessor}. The triangles entirely outside the view frustum
+ * are culled, and so are the ones facing away from the <code>Camera</code>
+ * if {@link #setBackFaceCulling(boolean) back-face culling} is on. The ones
+ * crossing the near plane or the guard band around the screen are clipped.
+ * The rest are binned into square tiles of the screen, by their bounding
+ * box. Then every tile is rasterized on its own, in parallel. A tile only
+ * ever touches its own pixels, so no locks are needed.
+ * <p>
+ * By default shading is {@link #setDeferred(boolean) deferred}: the tiles
+ * only find the triangle seen through every pixel, into a {@link GBuffer},
+ * and then the visible pixels are shaded once each, by rows, in parallel.
+ * When the next frame has the same size, <code>Camera</code> and
+ * <code>Mesh</code>, and only the <code>Light</code> changed, the
+ * <code>GBuffer</code> is still right, so it is only shaded again.
+ * <p>
+ * How the pixels are lit is chosen with
+ * {@link #setShadingModel(ShadingModel)}.
+ * <p>
+ * Every tile goes through its triangles in the order of the
+ * <code>Scene</code>, and a pixel is only replaced by a strictly nearer
+ * one, so ties in depth always go to the first triangle. The result is the
+ * same whatever the number of threads.
+ * <p>
+ * The depth of every fragment is tested before it is lit, so hidden
+ * fragments cost only their position. In 
+ * {@link #setFrontToBack(boolean) front-to-back} mode the triangles are 
+ * sorted nearest first before every frame, so most hidden fragments come 
+ * after the ones hiding them and are rejected by that test.
+ * <p>
+ * This code is available through the
+ * <a href="http://www.gnu.org/licenses/gpl-2.0.html">GNU GPL v2.0</a> license.
+ * <br>
+ * You can acess the full project at
+ * <a href="https://github.com/vitordeatorreao/bcgproject1">GitHub</a>.
+ * @author	<a href="https://github.com/vitordeatorreao/">V&iacute;tor de
+ * 			Albuquerque Torre&atilde;o</a>
+ * @version 1.0
+ * @since 1.0
+ */
+public class Renderer {
+
+	/**
+	 * The width and height, in pixels, of the tiles the screen is split in.
+	 */
+	public static final int TILE_SIZE = 64;
+
+	/**
+	 * How many rows of the screen a task shades without splitting further.
+	 */
+	private static final int ROWS_PER_TASK = 16;
+
+	/**
+	 * How often, in triangles, binning checks if the frame was cancelled.
+	 */
+	private static final int CANCEL_CHECK_MASK = (1 << 16) - 1;
+
+	private int parallelism = Runtime.getRuntime().availableProcessors();
+	private ForkJoinPool pool;
+
+	private ZBuffer zBuffer;
+	private GBuffer gBuffer;
+	private int width;
+	private int height;
+
+	/*
+	 * The state of the frame being rendered.
+	 */
+	private Mesh mesh;
+	private Camera camera;
+	private Light light;
+	private ShadingContext context;
+	private ShadingModel model;
+
+	private final VertexProcessor vertexProcessor = new VertexProcessor();
+	private int[] screen;
+	private int[] indices;
+	private int numTriangles;
+
+	private boolean backFaceCulling = false;
+	private boolean frontToBack = false;
+	private boolean deferred = true;
+	private ShadingModel shadingModel = new PhongShading();
+	private boolean specularTable = false;
+	
+	/**
+	 * Changes whenever a setting which changes the picture does.
+	 */
+	private int settingsVersion;
+
+	/**
+	 * The table of the last frame, kept while the exponent stays the same.
+	 */
+	private SpecularTable lastSpecularTable;
+
+	/*
+	 * What the visibility in the GBuffer was computed from.
+	 */
+	private boolean visibilityCached = false;
+	private int cachedMeshVersion;
+	private boolean cachedBackFaceCulling;
+
+	/*
+	 * How many times cancel() was called, and how many times it had been 
+	 * when the frame being rendered was asked for. The frame was cancelled 
+	 * if they differ.
+	 */
+	private final AtomicLong cancels = new AtomicLong();
+	private volatile long frameCancels;
+	private final FrameStats stats = new FrameStats();
+
+	/*
+	 * The parts of the clipped triangles: the triangle they come from, the
+	 * screen coordinates of their vertices and the barycentric coordinates
+	 * of their vertices in the original triangle. In the bins, part i is
+	 * stored as -(i + 1).
+	 */
+	private final TriangleClipper clipper = new TriangleClipper();
+	private final int[] clippedXs = new int[TriangleClipper.MAX_VERTICES];
+	private final int[] clippedYs = new int[TriangleClipper.MAX_VERTICES];
+	private final Vec3 clippedVertex = new Vec3();
+	private int numParts;
+	private int[] partTriangles = new int[0];
+	private int[] partScreen = new int[0];
+	private double[] partBarycentrics = new double[0];
+
+	/*
+	 * The triangles overlapping every tile, in the order of the Scene.
+	 */
+	private int tilesX;
+	private int tilesY;
+	private int[][] bins = new int[0][];
+	private int[] binSizes = new int[0];
+
+	/**
+	 * Returns the number of threads used to render.
+	 * @return the number of threads
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Sets the number of threads used to render. With <code>1</code>, the
+	 * tiles are rendered one after the other on the calling thread.
+	 * @param parallelism the number of threads, at least 1
+	 */
+	public synchronized void setParallelism(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException(
+					"At least one thread is needed to render");
+		}
+		if (parallelism != this.parallelism && pool != null) {
+			pool.shutdown();
+			pool = null;
+		}
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Returns the pool the tiles are rendered on.
+	 * @return the <code>ForkJoinPool</code>
+	 */
+	private synchronized ForkJoinPool getPool() {
+		if (pool == null) {
+			pool = new ForkJoinPool(parallelism);
+		}
+		return pool;
+	}
+
+	/**
+	 * Tells if triangles facing away from the <code>Camera</code> are 
+	 * culled.
+	 * @return <code>true</code> if back-facing triangles are culled
+	 */
+	public boolean getBackFaceCulling() {
+		return backFaceCulling;
+	}
+
+	/**
+	 * Sets if triangles facing away from the <code>Camera</code> are 
+	 * culled. A triangle faces away when its normal, by the order of its 
+	 * vertices, does. This roughly halves the work on closed meshes whose 
+	 * triangles are all ordered the same way, but hides the inside of open 
+	 * ones, so it is off by default.
+	 * @param backFaceCulling <code>true</code> to cull back-facing triangles
+	 */
+	public void setBackFaceCulling(boolean backFaceCulling) {
+		if (this.backFaceCulling != backFaceCulling) {
+			this.backFaceCulling = backFaceCulling;
+			settingsVersion++;
+		}
+	}
+
+	/**
+	 * Returns how the colors of the pixels are computed.
+	 * @return the <code>ShadingModel</code>
+	 */
+	public ShadingModel getShadingModel() {
+		return shadingModel;
+	}
+
+	/**
+	 * Sets how the colors of the pixels are computed, from the next frame 
+	 * on. It is {@link PhongShading} by default.
+	 * @param shadingModel the <code>ShadingModel</code>
+	 */
+	public void setShadingModel(ShadingModel shadingModel) {
+		if (shadingModel == null) {
+			throw new IllegalArgumentException(
+					"A shading model is needed to render");
+		}
+		if (this.shadingModel != shadingModel) {
+			this.shadingModel = shadingModel;
+			settingsVersion++;
+		}
+	}
+
+	/**
+	 * Tells if the specular exponent is taken from a table.
+	 * @return <code>true</code> if a table is used
+	 */
+	public boolean getSpecularTable() {
+		return specularTable;
+	}
+
+	/**
+	 * Sets if the specular cosine is raised to the exponent of the
+	 * <code>Light</code> through a table interpolated over
+	 * <code>[0, 1]</code>, instead of <code>Math.pow</code>. The table is
+	 * built when the exponent changes, and its error is given by
+	 * {@link ShadingContext#getSpecularError()}: about a thousandth, that
+	 * is a quarter of a level of color, for exponents from 2 to several
+	 * thousands. This is off by default.
+	 * @param specularTable <code>true</code> to use a table
+	 */
+	public void setSpecularTable(boolean specularTable) {
+		if (this.specularTable != specularTable) {
+			this.specularTable = specularTable;
+			settingsVersion++;
+		}
+	}
+
+	/**
+	 * Returns what the shaders of the last frame read from the
+	 * <code>Light</code> and the <code>Camera</code>.
+	 * @return the <code>ShadingContext</code>, or <code>null</code> if
+	 * 			there was no <code>Light</code>
+	 */
+	public ShadingContext getShadingContext() {
+		return context;
+	}
+
+	/**
+	 * Tells if the pixels are shaded after all triangles were rasterized.
+	 * @return <code>true</code> if shading is deferred
+	 */
+	public boolean getDeferred() {
+		return deferred;
+	}
+
+	/**
+	 * Sets if the pixels are shaded after all triangles were rasterized.
+	 * Deferred, the triangles only leave their depth and barycentric
+	 * coordinates in a G-buffer, and then every visible pixel is shaded
+	 * once, so the cost of shading depends on the size of the screen and
+	 * not on how many triangles cover every pixel. Otherwise, every
+	 * fragment nearer than the ones before it is shaded at once. This is
+	 * on by default.
+	 * @param deferred <code>true</code> to defer shading
+	 */
+	public void setDeferred(boolean deferred) {
+		if (this.deferred != deferred) {
+			this.deferred = deferred;
+			settingsVersion++;
+		}
+	}
+
+	/**
+	 * Tells if the triangles are sorted front-to-back before every frame.
+	 * @return <code>true</code> if the triangles are sorted
+	 */
+	public boolean getFrontToBack() {
+		return frontToBack;
+	}
+
+	/**
+	 * Sets if the triangles are sorted front-to-back, by 
+	 * {@link Scene#sortTriangles()}, before every frame. Nearer fragments 
+	 * then fill the <code>ZBuffer</code> first, and the ones they hide are 
+	 * rejected before being lit. The sort changes the order of the 
+	 * triangles of the <code>Mesh</code>.
+	 * @param frontToBack <code>true</code> to sort the triangles
+	 */
+	public void setFrontToBack(boolean frontToBack) {
+		if (this.frontToBack != frontToBack) {
+			this.frontToBack = frontToBack;
+			settingsVersion++;
+		}
+	}
+
+	/**
+	 * Returns a number which changes whenever one of the settings which 
+	 * change the picture does, so a frame rendered with the same number 
+	 * would look the same.
+	 * @return the version of the settings
+	 */
+	public int getSettingsVersion() {
+		return settingsVersion;
+	}
+
+	/**
+	 * Returns the counters of the last rendered frame. The same instance 
+	 * is updated by every frame, so it must be read on the thread which 
+	 * rendered it, after {@link #render(Scene, int, int)} returned.
+	 * @return the <code>FrameStats</code>
+	 */
+	public FrameStats getFrameStats() {
+		return stats;
+	}
+
+	/**
+	 * Returns the <code>ZBuffer</code> of the last rendered frame. It is
+	 * reused by the next frame of the same size.
+	 * @return the <code>ZBuffer</code>, or <code>null</code> if nothing
+	 * 			was rendered yet
+	 */
+	public ZBuffer getZBuffer() {
+		return zBuffer;
+	}
+
+	/**
+	 * Returns the screen coordinates of the vertices projected by the last
+	 * call to {@link #project(Scene, int, int)}. Vertex <code>v</code> of
+	 * the <code>Mesh</code> is at <code>2*v</code> and <code>2*v + 1</code>,
+	 * as an x and y pair.
+	 * @return the screen coordinates
+	 */
+	public int[] getScreenCoordinates() {
+		return screen;
+	}
+
+	/**
+	 * Projects all vertices of a <code>Scene</code> to the screen.
+	 * @param scene		The <code>Scene</code>
+	 * @param width		The width of the screen
+	 * @param height	The height of the screen
+	 * @return the number of projected triangles
+	 */
+	public int project(Scene scene, int width, int height) {
+		//The G-buffer no longer matches the projected frame
+		visibilityCached = false;
+		this.width = width;
+		this.height = height;
+		this.mesh = scene.getMesh();
+		this.camera = scene.getCamera();
+		this.light = scene.getLight();
+		this.model = shadingModel;
+		compileContext();
+		this.indices = mesh.getIndices();
+		this.numTriangles = camera == null ? 0 : mesh.getNumTriangles();
+		if (camera != null) {
+			vertexProcessor.process(mesh, camera, width, height,
+					parallelism == 1 ? null : getPool());
+		}
+		this.screen = vertexProcessor.getScreen();
+		return numTriangles;
+	}
+
+	/**
+	 * Compiles the <code>Light</code> and the <code>Camera</code> of the 
+	 * frame into the constants the shaders read.
+	 */
+	private void compileContext() {
+		if (camera == null || light == null) {
+			context = null;
+			return;
+		}
+		SpecularTable table = null;
+		if (specularTable) {
+			if (lastSpecularTable == null ||
+					lastSpecularTable.getExponent() != light.getN()) {
+				lastSpecularTable = new SpecularTable(light.getN());
+			}
+			table = lastSpecularTable;
+		}
+		context = new ShadingContext(camera, light, table);
+	}
+
+	/**
+	 * Renders the faces of a <code>Scene</code>.
+	 * @param scene		The <code>Scene</code>
+	 * @param width		The width of the screen
+	 * @param height	The height of the screen
+	 * @return the <code>ZBuffer</code> with the rendered frame
+	 * @throws CancellationException	If {@link #cancel()} was called 
+	 * 									while rendering
+	 */
+	public ZBuffer render(Scene scene, int width, int height) {
+		return render(scene, width, height, cancels.get());
+	}
+
+	/**
+	 * Renders the faces of a <code>Scene</code>, unless {@link #cancel()} 
+	 * was called since a token was taken with {@link #getCancelToken()}. 
+	 * A frame asked for on one thread and rendered on another should be 
+	 * rendered this way, so a cancel which comes before the frame starts 
+	 * is not lost.
+	 * @param scene		The <code>Scene</code>
+	 * @param width		The width of the screen
+	 * @param height	The height of the screen
+	 * @param token		The token taken when the frame was asked for
+	 * @return the <code>ZBuffer</code> with the rendered frame
+	 * @throws CancellationException	If {@link #cancel()} was called 
+	 * 									since the token was taken
+	 */
+	public ZBuffer render(Scene scene, int width, int height, long token) {
+		frameCancels = token;
+		checkCancelled();
+		if (frontToBack && scene.getCamera() != null) {
+			scene.sortTriangles();
+		}
+		if (isVisibilityCached(scene, width, height)) {
+			//Only the light may have changed
+			this.light = scene.getLight();
+			this.model = shadingModel;
+			compileContext();
+			zBuffer.clear();
+			stats.resetFragments();
+			stats.reshaded = true;
+			shade();
+			return zBuffer;
+		}
+
+		visibilityCached = false;
+		if (zBuffer == null || zBuffer.getWidth() != width ||
+				zBuffer.getHeight() != height) {
+			zBuffer = new ZBuffer(width, height);
+		} else {
+			zBuffer.clear();
+		}
+		if (deferred) {
+			if (gBuffer == null || gBuffer.getWidth() != width ||
+					gBuffer.getHeight() != height) {
+				gBuffer = new GBuffer(width, height);
+			} else {
+				gBuffer.clear();
+			}
+		}
+		project(scene, width, height);
+		checkCancelled();
+		bin();
+
+		int numTiles = tilesX * tilesY;
+		if (parallelism == 1) {
+			new TileRange(0, numTiles).compute();
+		} else {
+			getPool().invoke(new TileRange(0, numTiles));
+		}
+		visibilityCached = deferred && camera != null;
+		if (visibilityCached) {
+			cachedMeshVersion = mesh.getVersion();
+			cachedBackFaceCulling = backFaceCulling;
+			shade();
+		}
+		return zBuffer;
+	}
+
+	/**
+	 * Stops the frame being rendered, from any thread. The call to
+	 * {@link #render(Scene, int, int)} rendering it then throws a
+	 * <code>CancellationException</code>, as soon as the tile or rows it is
+	 * working on are done, and leaves its <code>ZBuffer</code> unfinished.
+	 * The next frame is rendered normally.
+	 */
+	public void cancel() {
+		cancels.incrementAndGet();
+	}
+
+	/**
+	 * Returns a token for a frame about to be asked for, to be given to 
+	 * {@link #render(Scene, int, int, long)}. The frame is cancelled by 
+	 * any call to {@link #cancel()} after this one.
+	 * @return the token
+	 */
+	public long getCancelToken() {
+		return cancels.get();
+	}
+
+	/**
+	 * Throws a <code>CancellationException</code> if the frame was
+	 * cancelled.
+	 */
+	private void checkCancelled() {
+		if (cancels.get() != frameCancels) {
+			throw new CancellationException("The frame was cancelled");
+		}
+	}
+
+	/**
+	 * Tells if the <code>GBuffer</code> of the last frame still holds what
+	 * is seen of a <code>Scene</code>.
+	 */
+	private boolean isVisibilityCached(Scene scene, int width, int height) {
+		return visibilityCached && deferred &&
+				width == this.width && height == this.height &&
+				scene.getCamera() == camera && scene.getMesh() == mesh &&
+				mesh.getVersion() == cachedMeshVersion &&
+				backFaceCulling == cachedBackFaceCulling;
+	}
+
+	/**
+	 * Shades every visible pixel of the <code>GBuffer</code> once.
+	 */
+	private void shade() {
+		if (parallelism == 1) {
+			new RowRange(0, height).compute();
+		} else {
+			getPool().invoke(new RowRange(0, height));
+		}
+	}
+
+	/**
+	 * Culls the triangles which cannot be seen, clips the ones which need 
+	 * it, and puts the others in the bins of the tiles their bounding box 
+	 * overlaps.
+	 */
+	private void bin() {
+		tilesX = (width + TILE_SIZE - 1) / TILE_SIZE;
+		tilesY = (height + TILE_SIZE - 1) / TILE_SIZE;
+		int numTiles = tilesX * tilesY;
+		if (bins.length < numTiles) {
+			bins = new int[numTiles][];
+			binSizes = new int[numTiles];
+		}
+		for (int i = 0; i < numTiles; i++) {
+			binSizes[i] = 0;
+		}
+
+		stats.reset();
+		stats.triangles = numTriangles;
+		numParts = 0;
+		int[] outcodes = vertexProcessor.getOutcodes();
+		for (int t = 0; t < numTriangles; t++) {
+			if ((t & CANCEL_CHECK_MASK) == 0) {
+				checkCancelled();
+			}
+			int a = indices[3*t];
+			int b = indices[3*t + 1];
+			int c = indices[3*t + 2];
+			int inside = outcodes[a] & outcodes[b] & outcodes[c];
+			if ((inside & VertexProcessor.OUT_FRUSTUM) != 0) {
+				//All vertices are out by the same plane
+				stats.outsideFrustum++;
+				continue;
+			}
+			if (backFaceCulling && isBackFacing(a, b, c)) {
+				stats.backFacing++;
+				continue;
+			}
+			int crossing = outcodes[a] | outcodes[b] | outcodes[c];
+			if ((crossing & VertexProcessor.NEEDS_CLIPPING) != 0) {
+				clip(t, a, b, c);
+				continue;
+			}
+			add(t, screen[2*a], screen[2*a + 1], screen[2*b],
+					screen[2*b + 1], screen[2*c], screen[2*c + 1]);
+		}
+	}
+
+	/**
+	 * Tells if a triangle faces away from the focus of the camera.
+	 */
+	private boolean isBackFacing(int a, int b, int c) {
+		double[] positions = mesh.getPositions();
+		a *= 3;
+		b *= 3;
+		c *= 3;
+		double abx = positions[b] - positions[a];
+		double aby = positions[b + 1] - positions[a + 1];
+		double abz = positions[b + 2] - positions[a + 2];
+		double acx = positions[c] - positions[a];
+		double acy = positions[c + 1] - positions[a + 1];
+		double acz = positions[c + 2] - positions[a + 2];
+		double nx = (aby * acz) - (abz * acy);
+		double ny = (abz * acx) - (abx * acz);
+		double nz = (abx * acy) - (aby * acx);
+		double ex = positions[a] - camera.getFocus().getCoord(0);
+		double ey = positions[a + 1] - camera.getFocus().getCoord(1);
+		double ez = positions[a + 2] - camera.getFocus().getCoord(2);
+		return (nx * ex) + (ny * ey) + (nz * ez) >= 0;
+	}
+
+	/**
+	 * Clips a triangle by the near plane and the guard band, and bins the 
+	 * parts which are left.
+	 */
+	private void clip(int t, int a, int b, int c) {
+		double d = camera.getD();
+		double gx = VertexProcessor.GUARD_BAND * camera.getHx();
+		double gy = VertexProcessor.GUARD_BAND * camera.getHy();
+		clipper.begin(vertexProcessor.getView(), a, b, c);
+		if (!clipper.clip(0, 0, 1, -VertexProcessor.NEAR_RATIO * d) ||
+				!clipper.clip(d, 0, gx, 0) || !clipper.clip(-d, 0, gx, 0) ||
+				!clipper.clip(0, d, gy, 0) || !clipper.clip(0, -d, gy, 0)) {
+			//Nothing of it is in front of the camera
+			stats.outsideFrustum++;
+			return;
+		}
+		stats.clipped++;
+
+		//Project the vertices of the polygon
+		int count = clipper.getCount();
+		int[] xs = clippedXs;
+		int[] ys = clippedYs;
+		Vec3 projected = clippedVertex;
+		for (int i = 0; i < count; i++) {
+			projected.set(clipper.get(i, 0), clipper.get(i, 1),
+					clipper.get(i, 2));
+			camera.perspective(projected, projected);
+			xs[i] = VertexProcessor.toScreenX(projected.getX(), width);
+			ys[i] = VertexProcessor.toScreenY(projected.getY(), height);
+		}
+
+		//Split the polygon in a fan of triangles
+		for (int i = 1; i + 1 < count; i++) {
+			if (numParts == partTriangles.length) {
+				int capacity = Math.max(16, 2 * partTriangles.length);
+				int[] triangles = new int[capacity];
+				int[] screens = new int[6 * capacity];
+				double[] barycentrics = new double[9 * capacity];
+				System.arraycopy(partTriangles, 0, triangles, 0, numParts);
+				System.arraycopy(partScreen, 0, screens, 0, 6 * numParts);
+				System.arraycopy(partBarycentrics, 0, barycentrics, 0,
+						9 * numParts);
+				partTriangles = triangles;
+				partScreen = screens;
+				partBarycentrics = barycentrics;
+			}
+			for (int k = 0; k < 3; k++) {
+				//The corners of the part are 0, i and i + 1
+				int v = k == 0 ? 0 : i + k - 1;
+				partScreen[6*numParts + 2*k] = xs[v];
+				partScreen[6*numParts + 2*k + 1] = ys[v];
+				for (int j = 0; j < 3; j++) {
+					partBarycentrics[9*numParts + 3*k + j] =
+							clipper.get(v, 3 + j);
+				}
+			}
+			partTriangles[numParts] = t;
+			int o = 6 * numParts;
+			add(-(numParts + 1), partScreen[o], partScreen[o + 1],
+					partScreen[o + 2], partScreen[o + 3],
+					partScreen[o + 4], partScreen[o + 5]);
+			numParts++;
+		}
+	}
+
+	/**
+	 * Puts a triangle, or a part of one, in the bins of the tiles its 
+	 * bounding box overlaps.
+	 */
+	private void add(int item, int x0, int y0, int x1, int y1,
+			int x2, int y2) {
+		int minX = Math.min(x0, Math.min(x1, x2));
+		int maxX = Math.max(x0, Math.max(x1, x2));
+		int minY = Math.min(y0, Math.min(y1, y2));
+		int maxY = Math.max(y0, Math.max(y1, y2));
+		if (maxX < 0 || maxY < 0 || minX >= width || minY >= height) {
+			return;
+		}
+		int fromX = Math.max(0, minX) / TILE_SIZE;
+		int toX = Math.min(width - 1, maxX) / TILE_SIZE;
+		int fromY = Math.max(0, minY) / TILE_SIZE;
+		int toY = Math.min(height - 1, maxY) / TILE_SIZE;
+		for (int ty = fromY; ty <= toY; ty++) {
+			for (int tx = fromX; tx <= toX; tx++) {
+				add(ty * tilesX + tx, item);
+			}
+		}
+	}
+
+	/**
+	 * Appends a triangle, or a part of one, to the bin of a tile.
+	 */
+	private void add(int tile, int item) {
+		int[] bin = bins[tile];
+		if (bin == null) {
+			bin = new int[64];
+			bins[tile] = bin;
+		} else if (binSizes[tile] == bin.length) {
+			int[] grown = new int[2 * bin.length];
+			System.arraycopy(bin, 0, grown, 0, bin.length);
+			bin = grown;
+			bins[tile] = bin;
+		}
+		bin[binSizes[tile]++] = item;
+	}
+
+	/**
+	 * Renders a range of tiles, splitting it among the threads of the pool.
+	 */
+	private class TileRange extends RecursiveAction {
+
+		private static final long serialVersionUID = -3021398752045561627L;
+
+		private int from;
+		private int to;
+
+		TileRange(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from == 1) {
+				checkCancelled();
+				new TileRenderer(from).render();
+			} else if (to > from) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new TileRange(from, middle),
+						new TileRange(middle, to));
+			}
+		}
+	}
+
+	/**
+	 * Shades a range of rows of the <code>GBuffer</code>, splitting it
+	 * among the threads of the pool.
+	 */
+	private class RowRange extends RecursiveAction {
+
+		private static final long serialVersionUID = 4212479410826453217L;
+
+		private int from;
+		private int to;
+
+		RowRange(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > ROWS_PER_TASK) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new RowRange(from, middle), new RowRange(middle, to));
+				return;
+			}
+			checkCancelled();
+			FragmentShader shader =
+					new FragmentShader(mesh, camera, context, model);
+			long shaded = 0;
+			for (int y = from; y < to; y++) {
+				for (int x = 0; x < width; x++) {
+					int triangle = gBuffer.getTriangle(x, y);
+					if (triangle == GBuffer.EMPTY) {
+						continue;
+					}
+					shader.place(triangle, gBuffer.getPosition(x, y, 0),
+							gBuffer.getPosition(x, y, 1),
+							gBuffer.getPosition(x, y, 2));
+					double alpha = gBuffer.getBarycentric(x, y, 0);
+					double beta = gBuffer.getBarycentric(x, y, 1);
+					double gama = gBuffer.getBarycentric(x, y, 2);
+					zBuffer.set(x, y, shader.shade(alpha, beta, gama),
+							gBuffer.getDeepness(x, y));
+					shaded++;
+				}
+			}
+			stats.addFragments(shaded, 0);
+		}
+	}
+
+	/**
+	 * Rasterizes the triangles of one tile. Every tile has its own scratch
+	 * state, so tiles can be rendered at the same time.
+	 */
+	private class TileRenderer implements Rasterizer.FragmentListener {
+
+		private int tile;
+		private int triangle;
+		private int part;
+		private long shaded;
+		private long rejected;
+		private final Rasterizer rasterizer = new Rasterizer();
+		private final FragmentShader shader =
+				new FragmentShader(mesh, camera, context, model);
+
+		TileRenderer(int tile) {
+			this.tile = tile;
+		}
+
+		void render() {
+			int left = (tile % tilesX) * TILE_SIZE;
+			int top = (tile / tilesX) * TILE_SIZE;
+			int right = Math.min(width, left + TILE_SIZE) - 1;
+			int bottom = Math.min(height, top + TILE_SIZE) - 1;
+
+			int[] bin = bins[tile];
+			for (int i = 0; i < binSizes[tile]; i++) {
+				boolean visible;
+				if (bin[i] >= 0) {
+					triangle = bin[i];
+					part = -1;
+					int a = 2 * indices[3*triangle];
+					int b = 2 * indices[3*triangle + 1];
+					int c = 2 * indices[3*triangle + 2];
+					visible = rasterizer.setup(screen[a], screen[a+1],
+							screen[b], screen[b+1], screen[c], screen[c+1]);
+				} else {
+					part = -bin[i] - 1;
+					triangle = partTriangles[part];
+					int o = 6 * part;
+					visible = rasterizer.setup(partScreen[o],
+							partScreen[o + 1], partScreen[o + 2],
+							partScreen[o + 3], partScreen[o + 4],
+							partScreen[o + 5]);
+				}
+				if (visible) {
+					rasterizer.rasterize(left, top, right, bottom, this);
+				}
+			}
+			stats.addFragments(shaded, rejected);
+		}
+
+		/**
+		 * Tests the depth of a pixel of the current triangle and, if it is
+		 * nearer, stores it in the <code>GBuffer</code>, or shades it and
+		 * stores it in the <code>ZBuffer</code> when not deferred.
+		 */
+		@Override
+		public void fragment(int x, int y,
+				double alpha, double beta, double gama) {
+			if (part >= 0) {
+				//Change to barycentric coordinates of the whole triangle
+				int o = 9 * part;
+				double[] p = partBarycentrics;
+				double a = alpha*p[o] + beta*p[o + 3] + gama*p[o + 6];
+				double b = alpha*p[o + 1] + beta*p[o + 4] + gama*p[o + 7];
+				double c = alpha*p[o + 2] + beta*p[o + 5] + gama*p[o + 8];
+				alpha = a;
+				beta = b;
+				gama = c;
+			}
+			double deepness = shader.locate(triangle, alpha, beta, gama);
+
+			if (deferred) {
+				if (deepness >= gBuffer.getDeepness(x, y)) {
+					rejected++;
+					return;
+				}
+				gBuffer.set(x, y, triangle, alpha, beta, gama,
+						shader.getPoint(), deepness);
+				return;
+			}
+
+			//Early depth test, before any lighting
+			if (deepness >= zBuffer.getDeepness(x, y)) {
+				rejected++;
+				return;
+			}
+			shaded++;
+			zBuffer.set(x, y, shader.shade(alpha, beta, gama), deepness);
+		}
+	}
+
+	/**
+	 * Checks that the ways of rendering which should give the same frame 
+	 * do, for every <code>ShadingModel</code>, on the .byu files given:
+	 * <ul>
+	 * <li>one thread and several threads;</li>
+	 * <li>forward and deferred shading;</li>
+	 * <li>the triangles in any order, sorted front-to-back, except for 
+	 * pixels where two triangles are exactly as deep, which go to the 
+	 * first one in the order;</li>
+	 * <li>shading the cached <code>GBuffer</code> again and a full frame, 
+	 * after the <code>Light</code> moved.</li>
+	 * </ul>
+	 * It also checks that a frame cancelled after it was asked for, but 
+	 * before it started, is not rendered, and prints the 
+	 * {@link FrameStats} of a frame with back-face culling off and on, to 
+	 * show how much of the work it saves.
+	 * Every frame is compared with the one rendered on a single thread 
+	 * with forward shading, pixel by pixel.
+	 * @param args	the .byu files, optionally preceded by 
+	 * 				<code>-threads N</code>, 8 by default
+	 */
+	public static void main(String[] args) {
+		int threads = 8;
+		int first = 0;
+		if (args.length >= 2 && args[0].equals("-threads")) {
+			threads = Integer.parseInt(args[1]);
+			first = 2;
+		}
+		if (args.length == first) {
+			System.err.println("Usage: Renderer [-threads N] file.byu "
+					+ "[file.byu ...]");
+			System.exit(1);
+		}
+		ShadingModel[] models = {new FlatShading(), new GouraudShading(), 
+				new PhongShading(), new BlinnPhongShading()};
+		SceneController sc = SceneController.getInstance();
+		boolean failed = false;
+		for (int f = first; f < args.length; f++) {
+			Scene scene;
+			try {
+				sc.loadScene(new File(args[f]));
+				scene = sc.getScene();
+			} catch (IOException | NonConformantSceneFile e) {
+				System.err.println(args[f]+": "+e.getMessage());
+				failed = true;
+				continue;
+			}
+			failed |= !checkCancelBeforeStart(args[f], scene);
+			printCulling(args[f], scene, threads);
+			for (ShadingModel model : models) {
+				ZBuffer expected = check(scene, model, 1, false, false);
+				String name = args[f]+", "+model+": ";
+				failed |= !same(name+threads+" threads", expected, 
+						check(scene, model, threads, false, false), false);
+				failed |= !same(name+"deferred", expected, 
+						check(scene, model, 1, true, false), false);
+				failed |= !same(name+"deferred on "+threads+" threads", 
+						expected, check(scene, model, threads, true, false), 
+						false);
+				
+				//Render back to front, then sort front to back again
+				Mesh mesh = scene.getMesh();
+				int[] reverse = new int[mesh.getNumTriangles()];
+				for (int t = 0; t < reverse.length; t++) {
+					reverse[t] = reverse.length - 1 - t;
+				}
+				mesh.reorderTriangles(reverse);
+				failed |= !same(name+"front-to-back", expected, 
+						check(scene, model, threads, true, true), true);
+				
+				//Move the light, shade the G-buffer again and compare
+				Light light = scene.getLight();
+				if (light != null && scene.getCamera() != null) {
+					Renderer renderer = new Renderer();
+					renderer.setShadingModel(model);
+					renderer.render(scene, CHECK_SIZE, CHECK_SIZE);
+					Vertex p = light.getpL();
+					scene.setLight(new Light(light.getiAmb(), light.getiL(), 
+							light.getkA(), light.getkS(), light.getN(), 
+							light.getkD(), light.getoD(), new Vertex(
+							new double[] {p.getCoord(0) + 150, 
+								p.getCoord(1) - 100, p.getCoord(2) + 50})));
+					ZBuffer reshaded = renderer.render(scene, CHECK_SIZE, 
+							CHECK_SIZE);
+					if (!renderer.getFrameStats().isReshaded()) {
+						System.out.println(name+"reshade: NOT RESHADED");
+						failed = true;
+					}
+					failed |= !same(name+"reshade", 
+							check(scene, model, 1, false, false), reshaded, 
+							false);
+					scene.setLight(light);
+				}
+			}
+		}
+		if (failed) {
+			System.exit(1);
+		}
+	}
+	
+	/**
+	 * The width and height of the frames compared by 
+	 * {@link #main(String[])}.
+	 */
+	private static final int CHECK_SIZE = 500;
+	
+	/**
+	 * Renders a frame for {@link #main(String[])} with a new 
+	 * <code>Renderer</code>.
+	 */
+	private static ZBuffer check(Scene scene, ShadingModel model, 
+			int parallelism, boolean deferred, boolean frontToBack) {
+		Renderer renderer = new Renderer();
+		renderer.setParallelism(parallelism);
+		renderer.setShadingModel(model);
+		renderer.setDeferred(deferred);
+		renderer.setFrontToBack(frontToBack);
+		return renderer.render(scene, CHECK_SIZE, CHECK_SIZE);
+	}
+	
+	/**
+	 * Cancels a frame between asking for it and rendering it, as the panel 
+	 * may, and prints the result.
+	 * @return <code>true</code> if the frame was cancelled, and the next 
+	 * 			one was not
+	 */
+	private static boolean checkCancelBeforeStart(String name, 
+			Scene scene) {
+		Renderer renderer = new Renderer();
+		long token = renderer.getCancelToken();
+		renderer.cancel();
+		String result;
+		try {
+			renderer.render(scene, CHECK_SIZE, CHECK_SIZE, token);
+			result = "RENDERED";
+		} catch (CancellationException e) {
+			try {
+				renderer.render(scene, CHECK_SIZE, CHECK_SIZE, 
+						renderer.getCancelToken());
+				result = "cancelled";
+			} catch (CancellationException again) {
+				result = "NEXT FRAME CANCELLED TOO";
+			}
+		}
+		System.out.println(name+", cancel before start: "+result);
+		return result.equals("cancelled");
+	}
+	
+	/**
+	 * Renders a frame with back-face culling off, then on, and prints the 
+	 * counters of both, with how much less was rasterized and shaded.
+	 */
+	private static void printCulling(String name, Scene scene, 
+			int threads) {
+		Renderer renderer = new Renderer();
+		renderer.setParallelism(threads);
+		renderer.render(scene, CHECK_SIZE, CHECK_SIZE);
+		FrameStats off = renderer.getFrameStats();
+		System.out.println(name+", culling off: "+off);
+		int rasterized = off.getRasterized();
+		long fragments = off.getShaded() + off.getRejected();
+		
+		renderer.setBackFaceCulling(true);
+		renderer.render(scene, CHECK_SIZE, CHECK_SIZE);
+		FrameStats on = renderer.getFrameStats();
+		System.out.println(name+", culling on: "+on+", culled = "
+				+on.getCulled()+", rasterized = "+on.getRasterized()
+				+" ("+percent(on.getRasterized(), rasterized)
+				+" of the triangles), fragments = "
+				+percent(on.getShaded() + on.getRejected(), fragments)
+				+" of the fragments");
+	}
+	
+	/**
+	 * Formats a count as a percentage of another.
+	 */
+	private static String percent(long part, long whole) {
+		return whole == 0 ? "-" : 
+				String.format("%.1f%%", 100.0 * part / whole);
+	}
+	
+	/**
+	 * Compares two frames and prints the result.
+	 * @param allowTies	<code>true</code> if pixels where both frames are 
+	 * 					exactly as deep may have different colors
+	 * @return <code>true</code> if they are the same
+	 */
+	private static boolean same(String name, ZBuffer expected, 
+			ZBuffer actual, boolean allowTies) {
+		int different = 0;
+		int ties = 0;
+		for (int y = 0; y < CHECK_SIZE; y++) {
+			for (int x = 0; x < CHECK_SIZE; x++) {
+				if (expected.getRGB(x, y) == actual.getRGB(x, y)) {
+					continue;
+				}
+				if (allowTies && expected.getDeepness(x, y) == 
+						actual.getDeepness(x, y)) {
+					ties++;
+				} else {
+					different++;
+				}
+			}
+		}
+		String result = different == 0 ? "same" : 
+				different+" pixels DIFFERENT";
+		if (ties > 0) {
+			result += ", "+ties+" tied pixels taken by another triangle";
+		}
+		System.out.println(name+": "+result);
+		return different == 0;
+	}
+
+}
@@ -0,0 +1,194 @@
+package com.gmail.vitordeatorreao.screen;
+
+import java.awt.Color;
+import java.util.Arrays;
+
+import com.gmail.vitordeatorreao.math.Vector;
+import com.gmail.vitordeatorreao.math.Vertex;
+import com.gmail.vitordeatorreao.scene.Camera;
+import com.gmail.vitordeatorreao.scene.Light;
+
+/**
+ * This class holds what the {@link ShadingModel}s need from the
+ * <code>Light</code> and the <code>Camera</code> of a frame, compiled once
+ * by the {@link Renderer} before any pixel is shaded.<br>
+ * The terms of the reflection model which never change within a frame are
+ * multiplied in advance, for every channel:
+ * <ul>
+ * <li>the ambient term, <code>kA * iAmb</code>;</li>
+ * <li>the diffuse factor, <code>kD * oD * iL</code>, to be multiplied by
+ * the cosine between the normal and the light;</li>
+ * <li>the specular factor, <code>kS * iL</code>, to be multiplied by the
+ * specular cosine raised to <code>n</code>.</li>
+ * </ul>
+ * So the shading of a pixel only reads <code>double</code>s, and never
+ * goes back to the <code>Light</code>, its <code>Color</code>s or its
+ * <code>Vector</code>s.
+ * <p>
+ * The specular cosine can also be raised to <code>n</code> through a table
+ * built for the frame, instead of <code>Math.pow</code>, within the error
+ * given by {@link #getSpecularError()}.
+ * <p>
+ * A <code>ShadingContext</code> is immutable, so it can be read by all the
+ * threads shading a frame. Two of them are equal when they shade the same
+ * way.
+ * <p>
+ * This code is available through the
+ * <a href="http://www.gnu.org/licenses/gpl-2.0.html">GNU GPL v2.0</a> license.
+ * <br>
+ * You can acess the full project at
+ * <a href="https://github.com/vitordeatorreao/bcgproject1">GitHub</a>.
+ * @author	<a href="https://github.com/vitordeatorreao/">V&iacute;tor de
+ * 			Albuquerque Torre&atilde;o</a>
+ * @version 1.0
+ * @since 1.0
+ */
+public final class ShadingContext {
+
+	private final double[] focus = new double[3];
+	private final double[] lightPosition = new double[3];
+	private final double[] ambient = new double[3];
+	private final double[] diffuse = new double[3];
+	private final double[] specular = new double[3];
+	private final double exponent;
+	private final SpecularTable specularTable;
+
+	/**
+	 * Compiles the <code>Light</code> and the <code>Camera</code> of a
+	 * frame.
+	 * @param camera	The <code>Camera</code>
+	 * @param light		The <code>Light</code>
+	 */
+	public ShadingContext(Camera camera, Light light) {
+		this(camera, light, null);
+	}
+
+	/**
+	 * Compiles the <code>Light</code> and the <code>Camera</code> of a
+	 * frame, with a table for the specular exponent.
+	 * @param camera		The <code>Camera</code>
+	 * @param light			The <code>Light</code>
+	 * @param specularTable	The table of <code>light.getN()</code>, or
+	 * 						<code>null</code> to use <code>Math.pow</code>
+	 */
+	ShadingContext(Camera camera, Light light, SpecularTable specularTable) {
+		Vertex c = camera.getFocus();
+		Vertex pL = light.getpL();
+		Color iAmb = light.getiAmb();
+		Color iL = light.getiL();
+		Vector kD = light.getkD();
+		Vector oD = light.getoD();
+		int[] iAmbRGB = {iAmb.getRed(), iAmb.getGreen(), iAmb.getBlue()};
+		int[] iLRGB = {iL.getRed(), iL.getGreen(), iL.getBlue()};
+		for (int k = 0; k < 3; k++) {
+			focus[k] = c.getCoord(k);
+			lightPosition[k] = pL.getCoord(k);
+			ambient[k] = light.getkA() * iAmbRGB[k];
+			diffuse[k] = kD.get(k) * oD.get(k) * iLRGB[k];
+			specular[k] = light.getkS() * iLRGB[k];
+		}
+		this.exponent = light.getN();
+		this.specularTable = specularTable;
+	}
+
+	/**
+	 * Returns a coordinate of the focus of the <code>Camera</code>.
+	 * @param k	<code>0</code> to <code>2</code> for x, y and z
+	 * @return the coordinate
+	 */
+	public double getFocus(int k) {
+		return focus[k];
+	}
+
+	/**
+	 * Returns a coordinate of the position of the <code>Light</code>.
+	 * @param k	<code>0</code> to <code>2</code> for x, y and z
+	 * @return the coordinate
+	 */
+	public double getLightPosition(int k) {
+		return lightPosition[k];
+	}
+
+	/**
+	 * Returns the ambient term, <code>kA * iAmb</code>, of a channel.
+	 * @param k	<code>0</code> to <code>2</code> for red, green and blue
+	 * @return the ambient term
+	 */
+	public double getAmbient(int k) {
+		return ambient[k];
+	}
+
+	/**
+	 * Returns the diffuse factor, <code>kD * oD * iL</code>, of a channel.
+	 * @param k	<code>0</code> to <code>2</code> for red, green and blue
+	 * @return the diffuse factor
+	 */
+	public double getDiffuse(int k) {
+		return diffuse[k];
+	}
+
+	/**
+	 * Returns the specular factor, <code>kS * iL</code>, of a channel.
+	 * @param k	<code>0</code> to <code>2</code> for red, green and blue
+	 * @return the specular factor
+	 */
+	public double getSpecular(int k) {
+		return specular[k];
+	}
+
+	/**
+	 * Returns the exponent of the specular cosine, <code>n</code>.
+	 * @return the exponent
+	 */
+	public double getExponent() {
+		return exponent;
+	}
+
+	/**
+	 * Returns the table the specular cosine is raised to <code>n</code>
+	 * through.
+	 * @return the table, or <code>null</code> if <code>Math.pow</code> is
+	 * 			used
+	 */
+	SpecularTable getSpecularTable() {
+		return specularTable;
+	}
+
+	/**
+	 * Returns the largest difference between the specular cosine raised to
+	 * <code>n</code> by this context and by <code>Math.pow</code>. It is
+	 * measured when the table is built.
+	 * @return the error, <code>0</code> when <code>Math.pow</code> is used
+	 */
+	public double getSpecularError() {
+		return specularTable == null ? 0 : specularTable.getMaxError();
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (!(o instanceof ShadingContext)) {
+			return false;
+		}
+		ShadingContext other = (ShadingContext) o;
+		return Arrays.equals(focus, other.focus) &&
+				Arrays.equals(lightPosition, other.lightPosition) &&
+				Arrays.equals(ambient, other.ambient) &&
+				Arrays.equals(diffuse, other.diffuse) &&
+				Arrays.equals(specular, other.specular) &&
+				Double.compare(exponent, other.exponent) == 0 &&
+				(specularTable == null) == (other.specularTable == null);
+	}
+
+	@Override
+	public int hashCode() {
+		int hash = Arrays.hashCode(focus);
+		hash = (31 * hash) + Arrays.hashCode(lightPosition);
+		hash = (31 * hash) + Arrays.hashCode(ambient);
+		hash = (31 * hash) + Arrays.hashCode(diffuse);
+		hash = (31 * hash) + Arrays.hashCode(specular);
+		hash = (31 * hash) + Double.valueOf(exponent).hashCode();
+		hash = (31 * hash) + (specularTable == null ? 0 : 1);
+		return hash;
+	}
+
+}
@@ -0,0 +1,61 @@
+package com.gmail.vitordeatorreao.screen;
+
+import com.gmail.vitordeatorreao.math.Vec3;
+import com.gmail.vitordeatorreao.scene.Mesh;
+
+/**
+ * A <code>ShadingModel</code> tells how the {@link Renderer} computes the
+ * color of the points of the triangles of a <code>Mesh</code> from the
+ * <code>Light</code>. It is chosen with
+ * {@link Renderer#setShadingModel(ShadingModel)}.
+ * <p>
+ * The pixels of a frame are shaded on several threads, so every thread
+ * asks the model for its own {@link Shader}. What they need from the
+ * <code>Light</code> and the <code>Camera</code> is compiled once per
+ * frame into a {@link ShadingContext}.
+ * <p>
+ * This code is available through the
+ * <a href="http://www.gnu.org/licenses/gpl-2.0.html">GNU GPL v2.0</a> license.
+ * <br>
+ * You can acess the full project at
+ * <a href="https://github.com/vitordeatorreao/bcgproject1">GitHub</a>.
+ * @author	<a href="https://github.com/vitordeatorreao/">V&iacute;tor de
+ * 			Albuquerque Torre&atilde;o</a>
+ * @version 1.0
+ * @since 1.0
+ * @see FlatShading
+ * @see GouraudShading
+ * @see PhongShading
+ * @see BlinnPhongShading
+ */
+public interface ShadingModel {
+
+	/**
+	 * Creates a <code>Shader</code> for one thread, for one frame. It may
+	 * be called by several threads at the same time.
+	 * @param mesh		The <code>Mesh</code> with the triangles
+	 * @param context	The <code>Light</code> and <code>Camera</code> of the
+	 * 					frame
+	 * @return the <code>Shader</code>
+	 */
+	Shader createShader(Mesh mesh, ShadingContext context);
+
+	/**
+	 * Computes the color of the points of the triangles, on one thread.
+	 */
+	interface Shader {
+
+		/**
+		 * Computes the color of a point of a triangle.
+		 * @param triangle	The triangle
+		 * @param alpha		The first barycentric coordinate of the point
+		 * @param beta		The second barycentric coordinate of the point
+		 * @param gama		The third barycentric coordinate of the point
+		 * @param point		The point, in the world base
+		 * @return the color of the point, packed as <code>0xFFRRGGBB</code>
+		 */
+		int shade(int triangle, double alpha, double beta, double gama,
+				Vec3 point);
+	}
+
+}
@@ -0,0 +1,220 @@
+package com.gmail.vitordeatorreao.screen;
+
+/**
+ * This class replaces <code>Math.pow(cosine, n)</code> in the specular
+ * term by a table of its values over <code>[0, 1]</code>, built once per
+ * frame for the exponent of the <code>Light</code>, and linearly
+ * interpolated between them.
+ * <p>
+ * For <code>n &gt;= 2</code>, linear interpolation over steps of size
+ * <code>h</code> is off by at most <code>h&sup2; n (n - 1) / 8</code>, the
+ * second derivative of <code>x<sup>n</sup></code> being largest at
+ * <code>1</code>. The table is made big enough to keep that under
+ * {@link #TARGET_ERROR}, which is a quarter of a level of color once
+ * multiplied by a specular factor of <code>255</code>, up to
+ * {@link #MAX_SIZE} steps, that is for exponents up to about 5800. Below
+ * <code>n = 2</code> the error is largest near <code>0</code> instead: it
+ * stays under <code>10<sup>-4</sup></code> from <code>n = 1</code> on,
+ * and below that the biggest table is used, for an error about
+ * <code>(1/MAX_SIZE)<sup>n</sup></code>. Since bigger exponents also
+ * outgrow the table, the error reached is measured when the table is
+ * built, and returned by {@link #getMaxError()}. {@link #main(String[])}
+ * checks these bounds against <code>Math.pow</code>.
+ * <p>
+ * An instance is immutable, so it can be read by all the threads shading
+ * a frame.
+ * <p>
+ * This code is available through the
+ * <a href="http://www.gnu.org/licenses/gpl-2.0.html">GNU GPL v2.0</a> license.
+ * <br>
+ * You can acess the full project at
+ * <a href="https://github.com/vitordeatorreao/bcgproject1">GitHub</a>.
+ * @author	<a href="https://github.com/vitordeatorreao/">V&iacute;tor de
+ * 			Albuquerque Torre&atilde;o</a>
+ * @version 1.0
+ * @since 1.0
+ */
+class SpecularTable {
+
+	/**
+	 * The largest difference to <code>Math.pow</code> the table is sized
+	 * for.
+	 */
+	static final double TARGET_ERROR = 1.0 / 1024;
+
+	/**
+	 * The fewest steps of a table.
+	 */
+	static final int MIN_SIZE = 256;
+
+	/**
+	 * The most steps of a table.
+	 */
+	static final int MAX_SIZE = 1 << 16;
+
+	/**
+	 * How many points of every step are compared to <code>Math.pow</code>
+	 * to measure the error.
+	 */
+	private static final int SAMPLES_PER_STEP = 4;
+
+	private final double exponent;
+	private final int size;
+	private final double[] values;
+	private final double maxError;
+
+	/**
+	 * Builds the table of an exponent.
+	 * @param exponent	The exponent of the specular cosine
+	 */
+	SpecularTable(double exponent) {
+		this.exponent = exponent;
+		this.size = size(exponent);
+		this.values = new double[size + 1];
+		for (int i = 0; i <= size; i++) {
+			values[i] = Math.pow((double) i / size, exponent);
+		}
+
+		double error = 0;
+		for (int i = 0; i < size; i++) {
+			for (int k = 1; k < SAMPLES_PER_STEP; k++) {
+				double x = (i + ((double) k / SAMPLES_PER_STEP)) / size;
+				error = Math.max(error,
+						Math.abs(pow(x) - Math.pow(x, exponent)));
+			}
+		}
+		this.maxError = error;
+	}
+
+	/**
+	 * Returns how many steps keep the error of an exponent under the
+	 * target.
+	 */
+	private static int size(double exponent) {
+		if (exponent < 1) {
+			//Steep near 0, the error is about (1/size)^exponent
+			return MAX_SIZE;
+		}
+		if (exponent < 2) {
+			return MIN_SIZE;
+		}
+		double steps = Math.sqrt(exponent * (exponent - 1) /
+				(8 * TARGET_ERROR));
+		if (steps >= MAX_SIZE) {
+			return MAX_SIZE;
+		}
+		return Math.max(MIN_SIZE, (int) Math.ceil(steps));
+	}
+
+	/**
+	 * Returns the cosine raised to the exponent of the table.
+	 * @param cosine	The cosine, in <code>[0, 1]</code>. Bigger ones are
+	 * 					taken as <code>1</code>.
+	 * @return the power, within {@link #getMaxError()} of
+	 * 			<code>Math.pow</code>
+	 */
+	double pow(double cosine) {
+		if (cosine >= 1) {
+			return values[size];
+		}
+		double x = cosine * size;
+		int i = (int) x;
+		double t = x - i;
+		return values[i] + (t * (values[i + 1] - values[i]));
+	}
+
+	/**
+	 * Returns the exponent of the table.
+	 * @return the exponent
+	 */
+	double getExponent() {
+		return exponent;
+	}
+
+	/**
+	 * Returns the number of steps of the table.
+	 * @return the number of steps
+	 */
+	int getSize() {
+		return size;
+	}
+
+	/**
+	 * Returns the largest difference to <code>Math.pow</code> measured
+	 * when the table was built.
+	 * @return the error
+	 */
+	double getMaxError() {
+		return maxError;
+	}
+
+	/**
+	 * The exponents whose tables must stay within {@link #TARGET_ERROR}.
+	 */
+	private static final double[] CHECKED_EXPONENTS =
+		{0.5, 1, 2, 10, 100, 1000, 5000};
+
+	/**
+	 * Exponents past the largest table, whose error is only bound by
+	 * <code>h&sup2; n (n - 1) / 8</code>.
+	 */
+	private static final double[] OUTGROWN_EXPONENTS = {10000, 50000};
+
+	/**
+	 * How finely <code>[0, 1]</code> is sampled by
+	 * {@link #main(String[])}: 64 points per step of the largest table.
+	 */
+	private static final int CHECK_SAMPLES = 1 << 22;
+
+	/**
+	 * Checks the error of the tables against <code>Math.pow</code> over
+	 * dense samples of <code>[0, 1]</code>, and exits with
+	 * <code>1</code> if it is beyond what is documented. The exponents
+	 * from 0.5 to 5000 must stay within {@link #TARGET_ERROR}. Bigger ones
+	 * outgrow the table: they must stay within the bound of linear
+	 * interpolation, and {@link #getMaxError()} must tell they are past
+	 * the target.
+	 * @param args	not used
+	 */
+	public static void main(String[] args) {
+		boolean failed = false;
+		for (double n : CHECKED_EXPONENTS) {
+			failed |= !check(n, TARGET_ERROR, false);
+		}
+		for (double n : OUTGROWN_EXPONENTS) {
+			double h = 1.0 / MAX_SIZE;
+			failed |= !check(n, h * h * n * (n - 1) / 8, true);
+		}
+		if (failed) {
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Measures the error of the table of an exponent and prints it.
+	 * @param bound		the largest error allowed
+	 * @param outgrown	<code>true</code> if the table is expected to miss
+	 * 					the target
+	 * @return <code>true</code> if the table is as documented
+	 */
+	private static boolean check(double n, double bound, boolean outgrown) {
+		SpecularTable table = new SpecularTable(n);
+		double error = 0;
+		double worst = 0;
+		for (int i = 0; i <= CHECK_SAMPLES; i++) {
+			double x = (double) i / CHECK_SAMPLES;
+			double e = Math.abs(table.pow(x) - Math.pow(x, n));
+			if (e > error) {
+				error = e;
+				worst = x;
+			}
+		}
+		boolean ok = error <= bound && table.pow(2) == 1 &&
+				outgrown == (table.getMaxError() > TARGET_ERROR);
+		System.out.println("n = "+n+": "+table.getSize()+" steps, error "
+				+error+" at "+worst+" (bound "+bound+", measured when "
+				+"built "+table.getMaxError()+")"+(ok ? "" : " FAILED"));
+		return ok;
+	}
+
+}
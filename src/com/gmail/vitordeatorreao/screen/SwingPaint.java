@@ -5,22 +5,21 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.image.BufferedImage;
 import java.io.File;
-import java.io.IOException;
 
 import javax.imageio.ImageIO;
+import javax.swing.ButtonGroup;
 import javax.swing.ImageIcon;
+import javax.swing.JCheckBoxMenuItem;
 import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JMenu;
 import javax.swing.JMenuBar;
 import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
+import javax.swing.JRadioButtonMenuItem;
 import javax.swing.SwingUtilities;
 import javax.swing.filechooser.FileFilter;
 
-import com.gmail.vitordeatorreao.scene.NonConformantSceneFile;
-import com.gmail.vitordeatorreao.scene.SceneController;
-
 /**
  * <code>SwingPaint</code> implements the main loop of the program.
  * <p>
@@ -125,15 +124,8 @@ public class SwingPaint {
 				int returnVal = openFile.showOpenDialog(null);
 				
 				if (returnVal == JFileChooser.APPROVE_OPTION) {
-					File file = openFile.getSelectedFile();
-					try {
-						SceneController.getInstance().loadScene(file);
-						paintablePanel.repaint();
-					} catch (IOException | NonConformantSceneFile e) {
-						JOptionPane.showMessageDialog(frame, 
-								e.getMessage(), "Error while opening file", 
-								JOptionPane.ERROR_MESSAGE);
-					}
+					//Large files take seconds, so they load in the background
+					paintablePanel.loadLater(openFile.getSelectedFile());
 				}
 				
 			}
@@ -171,11 +163,7 @@ public class SwingPaint {
 							!file.getName().endsWith(".PNG")) {
 						file = new File(file.getAbsolutePath()+".png");
 					}
-					BufferedImage im = new BufferedImage(
-							paintablePanel.getWidth(), 
-							paintablePanel.getHeight(), 
-							BufferedImage.TYPE_INT_RGB);
-					paintablePanel.paint(im.getGraphics());
+					BufferedImage im = paintablePanel.getImage();
 					
 					try {
 						ImageIO.write(im, "png", file);
@@ -249,8 +237,48 @@ public class SwingPaint {
 //        view.add(edgesCheckBox);
 //        view.add(facesCheckBox);
         
+        //Create Shading menu, with one item for each shading model
+        JMenu shading = new JMenu("Shading");
+        ButtonGroup shadingGroup = new ButtonGroup();
+        ShadingModel[] models = {new FlatShading(), new GouraudShading(), 
+        		new PhongShading(), new BlinnPhongShading()};
+        for (final ShadingModel model : models) {
+        	JRadioButtonMenuItem modelMenuItem = 
+        			new JRadioButtonMenuItem(model.toString());
+        	modelMenuItem.setSelected(model.getClass() == 
+        			paintablePanel.getRenderer().getShadingModel().getClass());
+        	modelMenuItem.addActionListener(new ActionListener() {
+				
+				@Override
+				public void actionPerformed(ActionEvent arg0) {
+					paintablePanel.getRenderer().setShadingModel(model);
+					paintablePanel.renderLater();
+				}
+			});
+        	shadingGroup.add(modelMenuItem);
+        	shading.add(modelMenuItem);
+        }
+        
+        //Culling the back faces hides the inside of open meshes
+        shading.addSeparator();
+        final JCheckBoxMenuItem cullingMenuItem = 
+        		new JCheckBoxMenuItem("Back-face culling");
+        cullingMenuItem.setState(
+        		paintablePanel.getRenderer().getBackFaceCulling());
+        cullingMenuItem.addActionListener(new ActionListener() {
+			
+			@Override
+			public void actionPerformed(ActionEvent arg0) {
+				paintablePanel.getRenderer().setBackFaceCulling(
+						cullingMenuItem.getState());
+				paintablePanel.renderLater();
+			}
+		});
+        shading.add(cullingMenuItem);
+        
         //Add menu to menu bar
         menuBar.add(file);
+        menuBar.add(shading);
 //        menuBar.add(view);
         
         //Set the JFrame MenuBar to the menu bar created
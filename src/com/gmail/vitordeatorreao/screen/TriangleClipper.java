@@ -0,0 +1,116 @@
+package com.gmail.vitordeatorreao.screen;
+
+/**
+ * This class clips a triangle, in the view base of the camera, by planes.<br>
+ * It implements the
+ * <a href="http://en.wikipedia.org/wiki/Sutherland%E2%80%93Hodgman_algorithm">
+ * Sutherland-Hodgman algorithm</a>: the triangle becomes a convex polygon,
+ * which is cut by one plane at a time. Every vertex of the polygon also
+ * keeps its barycentric coordinates in the original triangle, so the parts
+ * of the triangle can still be shaded with the attributes of its vertices.
+ * <p>
+ * This code is available through the
+ * <a href="http://www.gnu.org/licenses/gpl-2.0.html">GNU GPL v2.0</a> license.
+ * <br>
+ * You can acess the full project at
+ * <a href="https://github.com/vitordeatorreao/bcgproject1">GitHub</a>.
+ * @author	<a href="https://github.com/vitordeatorreao/">V&iacute;tor de
+ * 			Albuquerque Torre&atilde;o</a>
+ * @version 1.0
+ * @since 1.0
+ */
+class TriangleClipper {
+
+	/**
+	 * Every plane adds at most one vertex to the polygon.
+	 */
+	static final int MAX_VERTICES = 16;
+
+	private int count;
+	private double[] vertices = new double[6 * MAX_VERTICES];
+	private double[] clipped = new double[6 * MAX_VERTICES];
+
+	/**
+	 * Starts clipping a new triangle.
+	 * @param view	The coordinates of all vertices in the view base, three
+	 * 				per vertex
+	 * @param a		The index of the first vertex of the triangle
+	 * @param b		The index of the second vertex of the triangle
+	 * @param c		The index of the third vertex of the triangle
+	 */
+	void begin(double[] view, int a, int b, int c) {
+		count = 3;
+		load(0, view, a, 1, 0, 0);
+		load(1, view, b, 0, 1, 0);
+		load(2, view, c, 0, 0, 1);
+	}
+
+	private void load(int i, double[] view, int v,
+			double alpha, double beta, double gama) {
+		int o = 6 * i;
+		vertices[o] = view[3*v];
+		vertices[o + 1] = view[3*v + 1];
+		vertices[o + 2] = view[3*v + 2];
+		vertices[o + 3] = alpha;
+		vertices[o + 4] = beta;
+		vertices[o + 5] = gama;
+	}
+
+	/**
+	 * Keeps only the part of the polygon where
+	 * <code>a*x + b*y + c*z + w &gt;= 0</code>.
+	 * @return	<code>false</code> if nothing is left of the polygon,
+	 * 			<code>true</code> otherwise
+	 */
+	boolean clip(double a, double b, double c, double w) {
+		int n = 0;
+		for (int i = 0; i < count; i++) {
+			int p = 6 * i;
+			int q = 6 * ((i + 1) % count);
+			double dp = (a * vertices[p]) + (b * vertices[p + 1]) +
+					(c * vertices[p + 2]) + w;
+			double dq = (a * vertices[q]) + (b * vertices[q + 1]) +
+					(c * vertices[q + 2]) + w;
+			if (dp >= 0) {
+				System.arraycopy(vertices, p, clipped, 6 * n, 6);
+				n++;
+			}
+			if ((dp >= 0) != (dq >= 0)) {
+				//The edge crosses the plane
+				double t = dp / (dp - dq);
+				int o = 6 * n;
+				for (int k = 0; k < 6; k++) {
+					clipped[o + k] = vertices[p + k] +
+							(t * (vertices[q + k] - vertices[p + k]));
+				}
+				n++;
+			}
+		}
+		double[] temp = vertices;
+		vertices = clipped;
+		clipped = temp;
+		count = n;
+		return count >= 3;
+	}
+
+	/**
+	 * Returns the number of vertices of the clipped polygon.
+	 * @return the number of vertices
+	 */
+	int getCount() {
+		return count;
+	}
+
+	/**
+	 * Returns a coordinate of a vertex of the clipped polygon.
+	 * @param i	The vertex
+	 * @param k	<code>0</code> to <code>2</code> for x, y and z in the view
+	 * 			base; <code>3</code> to <code>5</code> for the barycentric
+	 * 			coordinates in the original triangle
+	 * @return the coordinate
+	 */
+	double get(int i, int k) {
+		return vertices[6*i + k];
+	}
+
+}
@@ -0,0 +1,264 @@
+package com.gmail.vitordeatorreao.screen;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.gmail.vitordeatorreao.math.Vec3;
+import com.gmail.vitordeatorreao.scene.Camera;
+import com.gmail.vitordeatorreao.scene.Mesh;
+
+/**
+ * This class implements the vertex stage of the {@link Renderer}.<br>
+ * Every vertex of a <code>Mesh</code> is changed to the view base of the
+ * <code>Camera</code>, projected in perspective and mapped to the screen
+ * once per frame, however many triangles share it. The triangles then
+ * read their corners from the resulting buffers through the indices of the
+ * <code>Mesh</code>.
+ * <p>
+ * Every vertex also gets an outcode, with one bit for every plane of the
+ * view frustum and of the guard band it is outside of, so the triangles can
+ * be culled and clipped without testing their vertices again.
+ * <p>
+ * This code is available through the
+ * <a href="http://www.gnu.org/licenses/gpl-2.0.html">GNU GPL v2.0</a> license.
+ * <br>
+ * You can acess the full project at
+ * <a href="https://github.com/vitordeatorreao/bcgproject1">GitHub</a>.
+ * @author	<a href="https://github.com/vitordeatorreao/">V&iacute;tor de
+ * 			Albuquerque Torre&atilde;o</a>
+ * @version 1.0
+ * @since 1.0
+ */
+class VertexProcessor {
+
+	/**
+	 * How many vertices a task transforms without splitting further.
+	 */
+	private static final int BATCH_SIZE = 8192;
+
+	/**
+	 * The distance from the focus to the near plane, as a fraction of the
+	 * distance to the view plane.
+	 */
+	static final double NEAR_RATIO = 1e-2;
+
+	/**
+	 * How many times the half-size of the screen the guard band extends to.
+	 * Triangles reaching past it are clipped, so screen coordinates always
+	 * stay small enough for exact edge functions.
+	 */
+	static final double GUARD_BAND = 16;
+
+	/*
+	 * The bits of the outcodes.
+	 */
+	static final int OUT_NEAR = 1;
+	static final int OUT_LEFT = 1 << 1;
+	static final int OUT_RIGHT = 1 << 2;
+	static final int OUT_BOTTOM = 1 << 3;
+	static final int OUT_TOP = 1 << 4;
+	static final int GUARD_LEFT = 1 << 5;
+	static final int GUARD_RIGHT = 1 << 6;
+	static final int GUARD_BOTTOM = 1 << 7;
+	static final int GUARD_TOP = 1 << 8;
+
+	/**
+	 * The bits of the planes of the view frustum.
+	 */
+	static final int OUT_FRUSTUM =
+			OUT_NEAR | OUT_LEFT | OUT_RIGHT | OUT_BOTTOM | OUT_TOP;
+
+	/**
+	 * The bits of the planes which need clipping.
+	 */
+	static final int NEEDS_CLIPPING =
+			OUT_NEAR | GUARD_LEFT | GUARD_RIGHT | GUARD_BOTTOM | GUARD_TOP;
+
+	private double[] positions;
+	private Camera camera;
+	private int width;
+	private int height;
+
+	/**
+	 * The screen coordinates of every vertex, x and y.
+	 */
+	private int[] screen = new int[0];
+
+	/**
+	 * The coordinates of every vertex in the view base of the camera.
+	 */
+	private double[] view = new double[0];
+
+	/**
+	 * The outcode of every vertex.
+	 */
+	private int[] outcodes = new int[0];
+
+	/**
+	 * Transforms all vertices of a <code>Mesh</code> to the screen.
+	 * @param mesh		The <code>Mesh</code>
+	 * @param camera	The <code>Camera</code> looking at it
+	 * @param width		The width of the screen
+	 * @param height	The height of the screen
+	 * @param pool		Where to split the work, or <code>null</code> to do
+	 * 					it all on the calling thread
+	 */
+	void process(Mesh mesh, Camera camera, int width, int height,
+			ForkJoinPool pool) {
+		this.positions = mesh.getPositions();
+		this.camera = camera;
+		this.width = width;
+		this.height = height;
+		int numVertices = mesh.getNumVertices();
+		if (view.length < 3 * numVertices) {
+			screen = new int[2 * numVertices];
+			view = new double[3 * numVertices];
+			outcodes = new int[numVertices];
+		}
+
+		VertexRange all = new VertexRange(0, numVertices);
+		if (pool == null || numVertices <= BATCH_SIZE) {
+			all.compute();
+		} else {
+			pool.invoke(all);
+		}
+	}
+
+	/**
+	 * Returns the screen coordinates of the vertices: vertex
+	 * <code>v</code> is at <code>(screen[2*v], screen[2*v + 1])</code>.
+	 * @return the screen coordinates
+	 */
+	int[] getScreen() {
+		return screen;
+	}
+
+	/**
+	 * Returns the coordinates of every vertex in the view base of the 
+	 * camera, three per vertex. The third one is the depth of the vertex.
+	 * @return the view coordinates
+	 */
+	double[] getView() {
+		return view;
+	}
+
+	/**
+	 * Returns the outcode of every vertex, a combination of the 
+	 * <code>OUT_</code> and <code>GUARD_</code> bits of the planes the 
+	 * vertex is outside of.
+	 * @return the outcodes
+	 */
+	int[] getOutcodes() {
+		return outcodes;
+	}
+
+	/**
+	 * Maps a normalized x coordinate of the view plane to the screen.
+	 * @param xs	The coordinate, in <code>[-1, 1]</code> inside the screen
+	 * @param width	The width of the screen
+	 * @return the column of the pixel
+	 */
+	static int toScreenX(double xs, int width) {
+		double aux = ( ((xs+1)/2)*width ) + 0.5;
+		return (int) Math.floor(aux);
+	}
+
+	/**
+	 * Maps a normalized y coordinate of the view plane to the screen.
+	 * @param ys		The coordinate, in <code>[-1, 1]</code> inside the 
+	 * 					screen
+	 * @param height	The height of the screen
+	 * @return the row of the pixel
+	 */
+	static int toScreenY(double ys, int height) {
+		double aux = (height - (((ys+1)/2) * height) + 0.5);
+		return (int) Math.floor(aux);
+	}
+
+	/**
+	 * Computes the outcode of a point in the view base. The planes of the
+	 * frustum go through the focus and the borders of the view plane, so
+	 * a point is inside them where, for example,
+	 * <code>-hx &lt;= d*x/z</code>, i.e. <code>d*x + hx*z &gt;= 0</code>.
+	 * The frustum is widened by two pixels on every side, so nothing that
+	 * rounds to a pixel of the screen is culled.
+	 */
+	private int outcode(double x, double y, double z) {
+		double d = camera.getD();
+		double hx = camera.getHx() * (1 + (4.0 / width));
+		double hy = camera.getHy() * (1 + (4.0 / height));
+		int code = 0;
+		if (z < NEAR_RATIO * d) {
+			code |= OUT_NEAR;
+		}
+		if ((d * x) + (hx * z) < 0) {
+			code |= OUT_LEFT;
+		}
+		if ((hx * z) - (d * x) < 0) {
+			code |= OUT_RIGHT;
+		}
+		if ((d * y) + (hy * z) < 0) {
+			code |= OUT_BOTTOM;
+		}
+		if ((hy * z) - (d * y) < 0) {
+			code |= OUT_TOP;
+		}
+		if ((d * x) + (GUARD_BAND * hx * z) < 0) {
+			code |= GUARD_LEFT;
+		}
+		if ((GUARD_BAND * hx * z) - (d * x) < 0) {
+			code |= GUARD_RIGHT;
+		}
+		if ((d * y) + (GUARD_BAND * hy * z) < 0) {
+			code |= GUARD_BOTTOM;
+		}
+		if ((GUARD_BAND * hy * z) - (d * y) < 0) {
+			code |= GUARD_TOP;
+		}
+		return code;
+	}
+
+	/**
+	 * Transforms a range of vertices, splitting it among the threads of
+	 * the pool.
+	 */
+	private class VertexRange extends RecursiveAction {
+
+		private static final long serialVersionUID = 6021553364893425140L;
+
+		private int from;
+		private int to;
+
+		VertexRange(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > BATCH_SIZE) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new VertexRange(from, middle),
+						new VertexRange(middle, to));
+				return;
+			}
+			Vec3 projected = new Vec3();
+			for (int v = from; v < to; v++) {
+				//First, change to view base
+				projected.set(positions, 3 * v);
+				camera.toView(projected, projected);
+				view[3*v] = projected.getX();
+				view[3*v + 1] = projected.getY();
+				view[3*v + 2] = projected.getZ();
+				outcodes[v] = outcode(projected.getX(), projected.getY(),
+						projected.getZ());
+
+				//Second, project in perspective and get screen coordinates
+				camera.perspective(projected, projected);
+				screen[2*v] = toScreenX(projected.getX(), width);
+				screen[2*v + 1] = toScreenY(projected.getY(), height);
+			}
+		}
+	}
+
+}
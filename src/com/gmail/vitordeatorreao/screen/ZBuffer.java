@@ -1,11 +1,17 @@
 package com.gmail.vitordeatorreao.screen;
 
 import java.awt.Color;
+import java.util.Arrays;
 
 /**
  * <code>ZBuffer</code> implements the Z-Buffer algorithm.
  * See more <a href="http://en.wikipedia.org/wiki/Z-buffering">here</a>.
  * <p>
+ * The depths and colors are kept in two flat arrays in row-major order, the
+ * colors packed as <code>0xRRGGBB</code> integers. A <code>ZBuffer</code> is
+ * meant to be reused between frames of the same size through
+ * {@link #clear()}.
+ * <p>
  * This code is available through the 
  * <a href="http://www.gnu.org/licenses/gpl-2.0.html">GNU GPL v2.0</a> license.
  * <br>
@@ -18,7 +24,13 @@ import java.awt.Color;
  */
 public class ZBuffer {
 	
-	private Cell[][] buffer;
+	/**
+	 * The depth of a point where nothing was drawn yet.
+	 */
+	private static final float FAR = Float.MAX_VALUE;
+	
+	private float[] depths;
+	private int[] colors;
 	private int width;
 	private int height;
 	
@@ -29,16 +41,20 @@ public class ZBuffer {
 	 * @param height Typically, the height of the screen.
 	 */
 	public ZBuffer(int width, int height) {
-		this.buffer = new Cell[width][height];
+		this.depths = new float[width * height];
+		this.colors = new int[width * height];
 		this.width = width;
 		this.height = height;
-		
-		//So setColor and setDeepness wont throw NullPointerException
-		for (int i = 0; i < width; i++) {
-			for (int j = 0; j < height; j++) {
-				this.buffer[i][j] = new Cell(Color.black, Double.MAX_VALUE);
-			}
-		}
+		clear();
+	}
+	
+	/**
+	 * Resets every point to black and infinitely far, so the 
+	 * <code>ZBuffer</code> can be used for a new frame.
+	 */
+	public void clear() {
+		Arrays.fill(depths, FAR);
+		Arrays.fill(colors, 0);
 	}
 	
 	/**
@@ -49,14 +65,26 @@ public class ZBuffer {
 	 * @param deepness The deepness of the point
 	 */
 	public void set(int x, int y, Color color, double deepness) {
+		set(x, y, color.getRGB(), deepness);
+	}
+	
+	/**
+	 * Sets the color and deepness of a point inside the ZBuffer.
+	 * @param x Width of the point
+	 * @param y Height of the point
+	 * @param rgb The color of the point, packed as <code>0xRRGGBB</code>. 
+	 * 			The highest byte is ignored.
+	 * @param deepness The deepness of the point
+	 */
+	public void set(int x, int y, int rgb, double deepness) {
 		if (x >= width || y >= height || 
 			x < 0 || y < 0) {
 			return;
 		}
-		double curDeep = this.buffer[x][y].getDeepness();
-		if (deepness < curDeep) {
-			this.buffer[x][y].setColor(color);
-			this.buffer[x][y].setDeepness(deepness);
+		int i = (y * width) + x;
+		if (deepness < depths[i]) {
+			colors[i] = rgb & 0xFFFFFF;
+			depths[i] = (float) deepness;
 		}
 	}
 	
@@ -71,7 +99,7 @@ public class ZBuffer {
 			x < 0 || y < 0) {
 			return Double.MIN_VALUE;
 		}
-		return this.buffer[x][y].getDeepness();
+		return depths[(y * width) + x];
 	}
 	
 	/**
@@ -81,7 +109,28 @@ public class ZBuffer {
 	 * @return The color of the point
 	 */
 	public Color getColor(int x, int y) {
-		return this.buffer[x][y].getColor();
+		return new Color(getRGB(x, y));
+	}
+	
+	/**
+	 * Returns the color associated with this point in the ZBuffer
+	 * @param x Width of the point
+	 * @param y Height of the point
+	 * @return The color of the point, packed as <code>0xRRGGBB</code>
+	 */
+	public int getRGB(int x, int y) {
+		return colors[(y * width) + x];
+	}
+	
+	/**
+	 * Returns the colors of all points, packed as <code>0xRRGGBB</code>, in 
+	 * row-major order: the point <code>(x, y)</code> is at 
+	 * <code>y * getWidth() + x</code>. The array is not copied, so it 
+	 * changes with the <code>ZBuffer</code>.
+	 * @return the backing array of colors
+	 */
+	public int[] getColors() {
+		return colors;
 	}
 	
 	/**
@@ -100,57 +149,4 @@ public class ZBuffer {
 		return height;
 	}
 
-	/**
-	 * Class that implements a cell inside the <code>ZBuffer</code>.
-	 */
-	private class Cell {
-		
-		private Color color;
-		private double deepness;
-		
-		/**
-		 * Constructor. A <code>Cell</code> is defined by a color and 
-		 * a distance to the <code>Camera</code> focus.
-		 * @param color
-		 * @param deepness
-		 */
-		public Cell(Color color, double deepness) {
-			this.color = color;
-			this.deepness = deepness;
-		}
-		
-		/**
-		 * Returns the color associated with this <code>Cell</code>.
-		 * @return The color
-		 */
-		public Color getColor() {
-			return this.color;
-		}
-		
-		/**
-		 * Returns the distance from the <code>Vertex</code>, which is depicted
-		 * at this <code>Cell</code> to the <code>Camera</code>'s focus.
-		 * @return
-		 */
-		public double getDeepness() {
-			return this.deepness;
-		}
-		
-		/**
-		 * Sets the new color for this <code>Cell</code>.
-		 * @param newColor The new Color
-		 */
-		public void setColor(Color newColor) {
-			this.color = newColor;
-		}
-		
-		/**
-		 * Sets the deepness associated with this <code>Cell</code>
-		 * @param newDeepness The deepness
-		 */
-		public void setDeepness(double newDeepness) {
-			this.deepness = newDeepness;
-		}
-	}
-
 }
@@ -0,0 +1,325 @@
+package com.gmail.vitordeatorreao.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import com.gmail.vitordeatorreao.math.Vertex;
+import com.gmail.vitordeatorreao.scene.Mesh;
+
+/**
+ * This class implements a
+ * <a href="http://en.wikipedia.org/wiki/Radix_sort">radix sort</a> of the
+ * triangles of a <code>Mesh</code> according to their centroid's distance
+ * to the camera focus, nearest first.
+ * <p>
+ * The squared distance of every triangle is computed only once, as a
+ * <code>float</code>. Non-negative <code>float</code>s sort the same as
+ * their bits read as an <code>int</code>, so a permutation of the triangles
+ * is sorted by those bits, one byte at a time, and the indices of the
+ * <code>Mesh</code> are then reordered by it. The sort is stable. Big
+ * meshes are sorted on several threads, with the same result.
+ * <p>
+ * An instance remembers the last <code>Mesh</code> it sorted. When it
+ * sorts it again, after the camera moved a little, the triangles are
+ * nearly in order already, so they are repaired by an insertion sort,
+ * which takes linear time plus one step per pair out of order. The moves 
+ * are checked against a budget proportional to the triangles done so far, 
+ * so if too many pairs turn out to be out of order it falls back to the 
+ * radix sort after trying only a small part of them. That is what happens 
+ * when the camera orbits a few tenths of a degree or more, since many 
+ * triangles are at nearly the same distance.
+ * <p>
+ * This code is available through the
+ * <a href="http://www.gnu.org/licenses/gpl-2.0.html">GNU GPL v2.0</a> license.
+ * <br>
+ * You can acess the full project at
+ * <a href="https://github.com/vitordeatorreao/bcgproject1">GitHub</a>.
+ * @author	<a href="https://github.com/vitordeatorreao/">V&iacute;tor de
+ * 			Albuquerque Torre&atilde;o</a>
+ * @version 1.0
+ * @since 1.0
+ */
+public class RadixSortTriangles {
+
+	/**
+	 * From how many triangles on the sort runs on several threads.
+	 */
+	private static final int PARALLEL_THRESHOLD = 1 << 16;
+
+	/**
+	 * How many moves per triangle the insertion sort may make before
+	 * falling back to the radix sort.
+	 */
+	private static final int MAX_MOVES_PER_TRIANGLE = 8;
+
+	/**
+	 * Every how many triangles the insertion sort checks if it is within 
+	 * its budget so far, so it gives up early when the order changed too 
+	 * much.
+	 */
+	private static final int CHECK_BLOCK = 1024;
+
+	private static final int RADIX_BITS = 8;
+	private static final int RADIX = 1 << RADIX_BITS;
+
+	private static ForkJoinPool pool;
+
+	/**
+	 * Returns the pool shared by all parallel sorts.
+	 * @return the <code>ForkJoinPool</code>
+	 */
+	private static synchronized ForkJoinPool getPool() {
+		if (pool == null) {
+			pool = new ForkJoinPool();
+		}
+		return pool;
+	}
+
+	private Mesh mesh;
+	private Vertex focus;
+	private int[] keys = new int[0];
+	private int[] order = new int[0];
+	private int[] keysTemp = new int[0];
+	private int[] orderTemp = new int[0];
+
+	/**
+	 * The <code>Mesh</code> sorted last, and its number of triangles.
+	 */
+	private Mesh lastMesh;
+	private int lastNumTriangles;
+	private boolean lastIncremental;
+
+	/**
+	 * Sorts the triangles of the mesh called by reference.
+	 * @param values The <code>Mesh</code> with the Triangles
+	 * @param focus The camera focus
+	 */
+	public void sort(Mesh values, Vertex focus) {
+		// check for empty or null array
+		if (values == null || values.getNumTriangles() < 2) {
+			return;
+		}
+		this.mesh = values;
+		this.focus = focus;
+		int n = values.getNumTriangles();
+		if (keys.length != n) {
+			keys = new int[n];
+			order = new int[n];
+			keysTemp = new int[n];
+			orderTemp = new int[n];
+		}
+		List<Chunk> parts = chunks(n);
+		for (Chunk part : parts) {
+			part.step = Chunk.KEYS;
+		}
+		run(parts);
+
+		long moves = -1;
+		if (values == lastMesh && n == lastNumTriangles) {
+			moves = insertionSort();
+		}
+		lastIncremental = moves >= 0;
+		if (!lastIncremental) {
+			radixSort(parts);
+		}
+
+		if (moves != 0) {
+			values.reorderTriangles(order);
+		}
+		this.mesh = null;
+		this.lastMesh = values;
+		this.lastNumTriangles = n;
+	}
+
+	/**
+	 * Tells if the last call to {@link #sort(Mesh, Vertex)} only repaired 
+	 * the previous order, instead of sorting from scratch.
+	 * @return <code>true</code> if the last sort was incremental
+	 */
+	public boolean wasIncremental() {
+		return lastIncremental;
+	}
+
+	/**
+	 * Sorts the keys by insertion, as long as it takes at most 
+	 * <code>MAX_MOVES_PER_TRIANGLE</code> moves per key sorted so far, 
+	 * checked every <code>CHECK_BLOCK</code> keys.
+	 * @return	<code>-1</code> if there were too many moves to make, 
+	 * 			otherwise the number of moves it took to sort the keys
+	 */
+	private long insertionSort() {
+		long moves = 0;
+		for (int i = 1; i < keys.length; i++) {
+			if ((i % CHECK_BLOCK) == 0 && 
+					moves > MAX_MOVES_PER_TRIANGLE * (long) i) {
+				return -1;
+			}
+			int key = keys[i];
+			if (keys[i - 1] <= key) {
+				continue;
+			}
+			int triangle = order[i];
+			int j = i - 1;
+			while (j >= 0 && keys[j] > key) {
+				keys[j + 1] = keys[j];
+				order[j + 1] = order[j];
+				j--;
+			}
+			keys[j + 1] = key;
+			order[j + 1] = triangle;
+			moves += i - 1 - j;
+		}
+		if (moves > MAX_MOVES_PER_TRIANGLE * (long) keys.length) {
+			return -1;
+		}
+		return moves;
+	}
+
+	/**
+	 * Splits the triangles in chunks, one per task if the sort is big
+	 * enough to run on several threads.
+	 */
+	private List<Chunk> chunks(int n) {
+		int chunks = 1;
+		if (n >= PARALLEL_THRESHOLD) {
+			chunks = 4 * getPool().getParallelism();
+		}
+		List<Chunk> parts = new ArrayList<Chunk>(chunks);
+		for (int c = 0; c < chunks; c++) {
+			parts.add(new Chunk((int) ((long) n * c / chunks),
+					(int) ((long) n * (c + 1) / chunks)));
+		}
+		return parts;
+	}
+
+	/**
+	 * Sorts the keys, and the permutation with them, by radix.
+	 */
+	private void radixSort(List<Chunk> parts) {
+		for (int shift = 0; shift < 32; shift += RADIX_BITS) {
+			for (Chunk part : parts) {
+				part.step = Chunk.COUNT;
+				part.shift = shift;
+			}
+			run(parts);
+			if (!offsets(parts)) {
+				//All keys have the same digit, this pass changes nothing
+				continue;
+			}
+			for (Chunk part : parts) {
+				part.step = Chunk.SCATTER;
+			}
+			run(parts);
+			int[] temp = keys;
+			keys = keysTemp;
+			keysTemp = temp;
+			temp = order;
+			order = orderTemp;
+			orderTemp = temp;
+		}
+	}
+
+	/**
+	 * Turns the digit counts of every chunk into the positions where the
+	 * chunk writes each digit, so the chunks keep their relative order.
+	 * @return	<code>false</code> if all keys have the same digit,
+	 * 			<code>true</code> otherwise
+	 */
+	private boolean offsets(List<Chunk> parts) {
+		int position = 0;
+		for (int digit = 0; digit < RADIX; digit++) {
+			int total = 0;
+			for (Chunk part : parts) {
+				total += part.counts[digit];
+			}
+			if (total == keys.length) {
+				return false;
+			}
+			for (Chunk part : parts) {
+				int count = part.counts[digit];
+				part.counts[digit] = position;
+				position += count;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Runs the current step of all chunks, on the shared pool if there is
+	 * more than one.
+	 */
+	private void run(List<Chunk> parts) {
+		if (parts.size() == 1) {
+			parts.get(0).call();
+			return;
+		}
+		try {
+			for (Future<Void> future : getPool().invokeAll(parts)) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while sorting", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	/**
+	 * A contiguous range of the triangles, processed by one thread.
+	 */
+	private class Chunk implements Callable<Void> {
+
+		static final int KEYS = 0;
+		static final int COUNT = 1;
+		static final int SCATTER = 2;
+
+		private int from;
+		private int to;
+		private int step;
+		private int shift;
+		private int[] counts = new int[RADIX];
+
+		Chunk(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		public Void call() {
+			switch (step) {
+			case KEYS:
+				for (int i = from; i < to; i++) {
+					float distance = (float) mesh.centroidDistanceSq(i, focus);
+					keys[i] = Float.floatToRawIntBits(distance);
+					order[i] = i;
+				}
+				break;
+			case COUNT:
+				for (int d = 0; d < RADIX; d++) {
+					counts[d] = 0;
+				}
+				for (int i = from; i < to; i++) {
+					counts[(keys[i] >>> shift) & (RADIX - 1)]++;
+				}
+				break;
+			case SCATTER:
+				for (int i = from; i < to; i++) {
+					int position = counts[(keys[i] >>> shift) & (RADIX - 1)]++;
+					keysTemp[position] = keys[i];
+					orderTemp[position] = order[i];
+				}
+				break;
+			}
+			return null;
+		}
+	}
+
+}